@@ -3,39 +3,49 @@ package com.almadevelop.telegram.chart;
 import android.app.Activity;
 import android.content.res.ColorStateList;
 import android.content.res.TypedArray;
-import android.graphics.Path;
 import android.graphics.PorterDuff;
 import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.util.Log;
 import android.view.LayoutInflater;
+import android.view.View;
 import android.view.ViewGroup;
 import android.widget.CheckBox;
 import android.widget.CompoundButton;
 
 import com.almadevelop.telegram.chart.graph.Graph;
 import com.almadevelop.telegram.chart.graph.GraphLine;
-import com.almadevelop.telegram.chart.parser.GraphRootParser;
+import com.almadevelop.telegram.chart.loader.GraphLoader;
 import com.almadevelop.telegram.chart.visualizer.GraphMapVisializer;
 import com.almadevelop.telegram.chart.visualizer.GraphVisualizer;
 
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.util.List;
+public class MainActivity extends Activity implements CompoundButton.OnCheckedChangeListener, View.OnLongClickListener, GraphLoader.Callback {
+    private static final String TAG = "MainActivity";
+    private static final int GRAPH_INDEX = 4;
 
-public class MainActivity extends Activity implements CompoundButton.OnCheckedChangeListener {
     private final int[] attrs = new int[]{android.R.attr.listChoiceIndicatorMultiple};
     private Drawable supportButtonDrawable;
 
     private GraphVisualizer graphVisualizer;
     private GraphMapVisializer miniGraphVisializer;
     private ViewGroup checkBoxesView;
+    private View progressView;
+    private View errorView;
+
+    private GraphLoader graphLoader;
+
+    //check boxes are changed to the lines state. No need to change the lines back
+    private boolean isSyncingCheckBoxes;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
         checkBoxesView = findViewById(R.id.checkboxes);
+        progressView = findViewById(R.id.progress);
+        errorView = findViewById(R.id.error);
         graphVisualizer = findViewById(R.id.graph);
         miniGraphVisializer = findViewById(R.id.miniVisualizer);
         miniGraphVisializer.setGraphControllerCallback(graphVisualizer);
@@ -46,32 +56,47 @@ public class MainActivity extends Activity implements CompoundButton.OnCheckedCh
             a.recycle();
         }
 
-        final List<Graph> graphs;
+        //placeholder is visible until the graph is loaded
+        progressView.setVisibility(View.VISIBLE);
 
-        try {
-            graphs = GraphRootParser.parse(new InputStreamReader(getResources().openRawResource(R.raw.chart_data)));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        graphLoader = new GraphLoader(getApplicationContext());
+        graphLoader.load(R.raw.chart_data, GRAPH_INDEX, this);
+    }
 
-        //graphs.get(4).getLines().remove(2);
-        //graphs.get(4).getLines().remove(2);
+    @Override
+    protected void onDestroy() {
+        graphLoader.destroy();
+        super.onDestroy();
+    }
+
+    @Override
+    public void onGraphLoaded(@NonNull Graph graph) {
+        progressView.setVisibility(View.GONE);
 
-        showGraph(graphs.get(4));
+        showGraph(graph);
     }
 
+    @Override
+    public void onGraphLoadFailed(@NonNull Exception e) {
+        Log.e(TAG, "Cannot load graph", e);
+
+        //placeholder is replaced by the error message
+        progressView.setVisibility(View.GONE);
+        errorView.setVisibility(View.VISIBLE);
+    }
 
     private void showGraph(Graph graph) {
         checkBoxesView.removeAllViews();
 
         final LayoutInflater inflater = LayoutInflater.from(this);
 
-        for (GraphLine line : graph.getLines()) {
+        for (int lineId = 0; lineId < graph.linesCount(); lineId++) {
+            final GraphLine line = graph.getLine(lineId);
             final CheckBox checkBox = (CheckBox) inflater.inflate(R.layout.layout_line_checkbox, checkBoxesView, false);
 
             checkBox.setText(line.getName());
             checkBox.setChecked(true);
-            checkBox.setTag(line.getLabel());
+            checkBox.setTag(lineId);
 
             if (supportButtonDrawable != null) {
                 final Drawable button = supportButtonDrawable.getConstantState().newDrawable().mutate();
@@ -82,6 +107,7 @@ public class MainActivity extends Activity implements CompoundButton.OnCheckedCh
             }
 
             checkBox.setOnCheckedChangeListener(this);
+            checkBox.setOnLongClickListener(this);
 
             checkBoxesView.addView(checkBox);
         }
@@ -91,8 +117,53 @@ public class MainActivity extends Activity implements CompoundButton.OnCheckedCh
 
     @Override
     public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
-        final String lineLabel = (String) buttonView.getTag();
-        miniGraphVisializer.setLineEnabled(lineLabel, isChecked);
+        if (isSyncingCheckBoxes) {
+            return;
+        }
+
+        final int lineId = (int) buttonView.getTag();
+        miniGraphVisializer.setLineEnabled(lineId, isChecked);
+    }
+
+    /**
+     * Show only the long clicked line. All lines are shown back if the line is already the only one
+     */
+    @Override
+    public boolean onLongClick(View v) {
+        final int lineId = (int) v.getTag();
+
+        if (isOnlyEnabledLine(lineId)) {
+            miniGraphVisializer.showAllLines();
+        } else {
+            miniGraphVisializer.soloLine(lineId);
+        }
+
+        syncCheckBoxes();
+
+        return true;
+    }
+
+    private boolean isOnlyEnabledLine(int lineId) {
+        for (int i = 0; i < checkBoxesView.getChildCount(); i++) {
+            final int id = (int) checkBoxesView.getChildAt(i).getTag();
+
+            if (miniGraphVisializer.isLineEnabled(id) != (id == lineId)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void syncCheckBoxes() {
+        isSyncingCheckBoxes = true;
+
+        for (int i = 0; i < checkBoxesView.getChildCount(); i++) {
+            final CheckBox checkBox = (CheckBox) checkBoxesView.getChildAt(i);
+            checkBox.setChecked(miniGraphVisializer.isLineEnabled((int) checkBox.getTag()));
+        }
+
+        isSyncingCheckBoxes = false;
     }
 
     private boolean useSupport() {
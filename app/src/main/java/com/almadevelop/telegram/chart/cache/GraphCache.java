@@ -0,0 +1,330 @@
+package com.almadevelop.telegram.chart.cache;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+
+import com.almadevelop.telegram.chart.graph.Column;
+import com.almadevelop.telegram.chart.graph.ColumnBuffers;
+import com.almadevelop.telegram.chart.graph.Graph;
+import com.almadevelop.telegram.chart.graph.GraphAxis;
+import com.almadevelop.telegram.chart.graph.GraphLine;
+import com.almadevelop.telegram.chart.graph.LongBufferColumn;
+import com.almadevelop.telegram.chart.graph.RangeExtremumIndex;
+import com.almadevelop.telegram.chart.graph.TimestampColumn;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary columnar cache of parsed graphs.
+ * Each graph is stored in its own file named by the hash of the source json and the graph index,
+ * so the cache is invalidated when the source changes. Files are read back through memory mapping.
+ * Columns, the x axis encoding and the extremum indexes are views of the mapping, so reading a graph
+ * costs only its header. Files are never changed in place, so the mapping stays valid.
+ * <p>
+ * File format (big endian, arrays are aligned to 8 bytes. See {@link ColumnBuffers}):
+ * <pre>
+ * int magic, int version, int pointsCount, int linesCount
+ * long xTopExtremum, long xLowExtremum
+ * for each line: label, name (int length + UTF-8 bytes), int color, long topExtremum, long lowExtremum
+ * x column: encoded timestamps. See {@link TimestampColumn#writeTo(DataOutputStream)}
+ * for each line: pointsCount longs, extremum index levels. See {@link RangeExtremumIndex#writeTo(DataOutputStream)}
+ * </pre>
+ */
+@WorkerThread
+public final class GraphCache {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String FILE_PREFIX = "graph_";
+    private static final String FILE_SUFFIX = ".bin";
+
+    //"GRPH"
+    private static final int MAGIC = 0x47525048;
+    private static final int VERSION = 2;
+
+    //int length of the label and the name, int color, long extremums
+    private static final int LINE_HEADER_MIN_SIZE = 4 + 4 + 4 + 8 + 8;
+
+    @NonNull
+    private final File dir;
+
+    /**
+     * @param dir directory for cache files. Usually it is the application cache dir
+     */
+    public GraphCache(@NonNull File dir) {
+        if (dir == null) {
+            throw new IllegalArgumentException("Cache dir cannot be null");
+        }
+
+        this.dir = dir;
+    }
+
+    /**
+     * Calculate hash of the source content. Used as a cache key
+     *
+     * @param in source stream. It will be closed
+     * @return hex string of the content hash
+     * @throws IOException if the stream cannot be read
+     */
+    @NonNull
+    public static String hash(@NonNull InputStream in) throws IOException {
+        final MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        try {
+            final byte[] buffer = new byte[8192];
+
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+
+        final byte[] hash = digest.digest();
+        final StringBuilder sb = new StringBuilder(hash.length * 2);
+
+        for (byte b : hash) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Read cached graph
+     *
+     * @param sourceHash hash of the source json. See {@link #hash(InputStream)}
+     * @param graphIndex position of the graph in the source json
+     * @return cached graph or null if there is no valid cache for it
+     */
+    @Nullable
+    public Graph read(@NonNull String sourceHash, int graphIndex) {
+        final File file = cacheFile(sourceHash, graphIndex);
+
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try {
+            final RandomAccessFile raf = new RandomAccessFile(file, "r");
+
+            try {
+                final FileChannel channel = raf.getChannel();
+
+                return readGraph(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } finally {
+                raf.close();
+            }
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            //broken cache file. It will be rewritten
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Write graph to the cache. Cache files of other sources are removed
+     *
+     * @param sourceHash hash of the source json. See {@link #hash(InputStream)}
+     * @param graphIndex position of the graph in the source json
+     * @param graph      graph to cache
+     * @throws IOException if the graph cannot be written
+     */
+    public void write(@NonNull String sourceHash, int graphIndex, @NonNull Graph graph) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create cache dir " + dir);
+        }
+
+        removeStale(sourceHash);
+
+        final File file = cacheFile(sourceHash, graphIndex);
+        //write to the temp file to not leave partially written cache
+        final File tempFile = new File(dir, file.getName() + ".tmp");
+
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 64 * 1024));
+
+        try {
+            writeGraph(out, graph);
+        } finally {
+            out.close();
+        }
+
+        if (!tempFile.renameTo(file)) {
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+            throw new IOException("Cannot rename cache file " + tempFile);
+        }
+    }
+
+    private static void writeGraph(@NonNull DataOutputStream out, @NonNull Graph graph) throws IOException {
+        final GraphAxis xAxis = graph.getXAxis();
+        final List<GraphLine> lines = graph.getLines();
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(graph.size());
+        out.writeInt(lines.size());
+
+        out.writeLong(xAxis.getTopExtremum());
+        out.writeLong(xAxis.getLowExtremum());
+
+        for (GraphLine line : lines) {
+            writeString(out, line.getLabel());
+            writeString(out, line.getName());
+            out.writeInt(line.getColor());
+            out.writeLong(line.getTopExtremum());
+            out.writeLong(line.getLowExtremum());
+        }
+
+        final Column xValues = xAxis.getData();
+
+        //parsed axis is already compressed
+        final TimestampColumn xColumn = xValues instanceof TimestampColumn ? (TimestampColumn) xValues : TimestampColumn.compress(xValues);
+        xColumn.writeTo(out);
+
+        for (GraphLine line : lines) {
+            if (line.getData().size() != graph.size()) {
+                throw new IllegalArgumentException("Line " + line.getLabel() + " size differs from the x axis size");
+            }
+
+            ColumnBuffers.writeLongs(out, line.getData());
+            line.getExtremumIndex().writeTo(out);
+        }
+    }
+
+    @NonNull
+    private static Graph readGraph(@NonNull ByteBuffer buffer) throws IOException {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Unsupported cache format");
+        }
+
+        final int pointsCount = buffer.getInt();
+        final int linesCount = buffer.getInt();
+
+        if (pointsCount < 0 || linesCount < 0) {
+            throw new IOException("Broken cache header");
+        }
+
+        final long xTopExtremum = buffer.getLong();
+        final long xLowExtremum = buffer.getLong();
+
+        //counts are checked against the file size before anything is allocated for them
+        if (linesCount > buffer.remaining() / LINE_HEADER_MIN_SIZE) {
+            throw new IOException("Broken cache header. Lines count: " + linesCount);
+        }
+
+        final long linesHeaderMinSize = (long) linesCount * LINE_HEADER_MIN_SIZE;
+
+        //x column can be encoded by a few bytes, but every line stores all its values
+        if (linesCount > 0 && pointsCount > (buffer.remaining() - linesHeaderMinSize) / (linesCount * 8L)) {
+            throw new IOException("Broken cache header. Points count: " + pointsCount);
+        }
+
+        final String[] labels = new String[linesCount];
+        final String[] names = new String[linesCount];
+        final int[] colors = new int[linesCount];
+        final long[] topExtremums = new long[linesCount];
+        final long[] lowExtremums = new long[linesCount];
+
+        for (int i = 0; i < linesCount; i++) {
+            labels[i] = readString(buffer);
+            names[i] = readString(buffer);
+            colors[i] = buffer.getInt();
+            topExtremums[i] = buffer.getLong();
+            lowExtremums[i] = buffer.getLong();
+        }
+
+        final TimestampColumn xColumn = TimestampColumn.read(buffer);
+
+        if (xColumn.size() != pointsCount) {
+            throw new IOException("Broken cache x column. Size: " + xColumn.size());
+        }
+
+        final GraphAxis xAxis = new GraphAxis(xColumn, xTopExtremum, xLowExtremum);
+
+        final List<GraphLine> lines = new ArrayList<>(linesCount);
+
+        for (int i = 0; i < linesCount; i++) {
+            final Column data = LongBufferColumn.wrap(ColumnBuffers.readLongs(buffer, pointsCount));
+
+            lines.add(new GraphLine(labels[i],
+                    names[i],
+                    data,
+                    RangeExtremumIndex.read(data, buffer),
+                    topExtremums[i],
+                    lowExtremums[i],
+                    colors[i]));
+        }
+
+        return new Graph(xAxis, lines);
+    }
+
+    private static void writeString(@NonNull DataOutputStream out, @NonNull String value) throws IOException {
+        final byte[] bytes = value.getBytes(UTF_8);
+
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @NonNull
+    private static String readString(@NonNull ByteBuffer buffer) throws IOException {
+        final int length = buffer.getInt();
+
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IOException("Broken cache string");
+        }
+
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+
+        return new String(bytes, UTF_8);
+    }
+
+    private File cacheFile(@NonNull String sourceHash, int graphIndex) {
+        return new File(dir, FILE_PREFIX + sourceHash + '_' + graphIndex + FILE_SUFFIX);
+    }
+
+    /**
+     * Remove cache files which were created for other sources
+     */
+    private void removeStale(@NonNull String sourceHash) {
+        final File[] files = dir.listFiles();
+
+        if (files == null) {
+            return;
+        }
+
+        final String currentPrefix = FILE_PREFIX + sourceHash + '_';
+
+        for (File file : files) {
+            final String name = file.getName();
+
+            if (name.startsWith(FILE_PREFIX) && !name.startsWith(currentPrefix)) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+    }
+}
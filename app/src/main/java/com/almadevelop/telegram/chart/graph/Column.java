@@ -0,0 +1,34 @@
+package com.almadevelop.telegram.chart.graph;
+
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+
+/**
+ * Read only column of graph values
+ */
+public interface Column {
+    /**
+     * @return number of values in the column
+     */
+    @IntRange(from = 0, to = Integer.MAX_VALUE)
+    int size();
+
+    /**
+     * @param index value position
+     * @return value at the provided position
+     * @throws IndexOutOfBoundsException if index is out of column bounds
+     */
+    long get(int index);
+
+    /**
+     * Copy column values into the provided array.
+     * Faster than {@link #get(int)} for a range of values
+     *
+     * @param start    first column position to copy
+     * @param dst      destination array
+     * @param dstStart first destination position
+     * @param length   number of values to copy
+     * @throws IndexOutOfBoundsException if requested range is out of column bounds
+     */
+    void copyTo(int start, @NonNull long[] dst, int dstStart, int length);
+}
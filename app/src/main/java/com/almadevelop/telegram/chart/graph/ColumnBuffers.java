@@ -0,0 +1,158 @@
+package com.almadevelop.telegram.chart.graph;
+
+import android.support.annotation.NonNull;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Binary form of the columns used by the graph cache.
+ * Arrays of longs and ints are aligned to 8 bytes, so views of a mapped file are read by aligned loads.
+ * Views share the memory with the source buffer and only advance its position
+ */
+public final class ColumnBuffers {
+    private static final int ALIGNMENT = 8;
+
+    private ColumnBuffers() {
+    }
+
+    /**
+     * Write zeros until the stream size is aligned
+     *
+     * @param out stream which is written from the start of the file
+     */
+    public static void align(@NonNull DataOutputStream out) throws IOException {
+        while (out.size() % ALIGNMENT != 0) {
+            out.writeByte(0);
+        }
+    }
+
+    /**
+     * Skip bytes written by {@link #align(DataOutputStream)}
+     *
+     * @param buffer buffer which starts at the start of the file
+     */
+    public static void align(@NonNull ByteBuffer buffer) {
+        final int remainder = buffer.position() % ALIGNMENT;
+
+        if (remainder != 0) {
+            skip(buffer, ALIGNMENT - remainder);
+        }
+    }
+
+    /**
+     * Write aligned column values
+     */
+    public static void writeLongs(@NonNull DataOutputStream out, @NonNull Column column) throws IOException {
+        align(out);
+
+        //copy by chunks. Random access can be slow for compressed columns
+        final long[] chunk = new long[Math.min(column.size(), 4096)];
+
+        for (int start = 0; start < column.size(); start += chunk.length) {
+            final int length = Math.min(chunk.length, column.size() - start);
+
+            column.copyTo(start, chunk, 0, length);
+
+            for (int i = 0; i < length; i++) {
+                out.writeLong(chunk[i]);
+            }
+        }
+    }
+
+    /**
+     * Write aligned values
+     */
+    public static void writeLongs(@NonNull DataOutputStream out, @NonNull LongBuffer values) throws IOException {
+        align(out);
+
+        for (int i = 0; i < values.limit(); i++) {
+            out.writeLong(values.get(i));
+        }
+    }
+
+    /**
+     * Write aligned values
+     */
+    public static void writeInts(@NonNull DataOutputStream out, @NonNull IntBuffer values) throws IOException {
+        align(out);
+
+        for (int i = 0; i < values.limit(); i++) {
+            out.writeInt(values.get(i));
+        }
+    }
+
+    /**
+     * Read view of the values written by {@link #writeLongs(DataOutputStream, LongBuffer)}
+     *
+     * @param buffer source buffer. Its position is moved after the values
+     * @param count  number of values
+     * @return view of the values
+     * @throws IllegalArgumentException if the buffer does not have enough data
+     */
+    @NonNull
+    public static LongBuffer readLongs(@NonNull ByteBuffer buffer, int count) {
+        align(buffer);
+
+        if (count < 0 || count > buffer.remaining() / 8) {
+            throw new IllegalArgumentException("Not enough data for " + count + " longs");
+        }
+
+        return slice(buffer, count * 8).asLongBuffer();
+    }
+
+    /**
+     * Read view of the values written by {@link #writeInts(DataOutputStream, IntBuffer)}
+     *
+     * @param buffer source buffer. Its position is moved after the values
+     * @param count  number of values
+     * @return view of the values
+     * @throws IllegalArgumentException if the buffer does not have enough data
+     */
+    @NonNull
+    public static IntBuffer readInts(@NonNull ByteBuffer buffer, int count) {
+        align(buffer);
+
+        if (count < 0 || count > buffer.remaining() / 4) {
+            throw new IllegalArgumentException("Not enough data for " + count + " ints");
+        }
+
+        return slice(buffer, count * 4).asIntBuffer();
+    }
+
+    /**
+     * @param buffer source buffer. Its position is moved after the bytes
+     * @param count  number of bytes
+     * @return view of the bytes
+     * @throws IllegalArgumentException if the buffer does not have enough data
+     */
+    @NonNull
+    public static ByteBuffer readBytes(@NonNull ByteBuffer buffer, int count) {
+        if (count < 0 || count > buffer.remaining()) {
+            throw new IllegalArgumentException("Not enough data for " + count + " bytes");
+        }
+
+        return slice(buffer, count);
+    }
+
+    @NonNull
+    private static ByteBuffer slice(@NonNull ByteBuffer buffer, int length) {
+        final ByteBuffer slice = buffer.slice();
+        slice.limit(length);
+
+        skip(buffer, length);
+
+        return slice;
+    }
+
+    private static void skip(@NonNull ByteBuffer buffer, int length) {
+        if (length > buffer.remaining()) {
+            throw new IllegalArgumentException("Not enough data to skip " + length + " bytes");
+        }
+
+        buffer.position(buffer.position() + length);
+    }
+}
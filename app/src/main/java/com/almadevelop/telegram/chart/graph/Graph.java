@@ -3,13 +3,21 @@ package com.almadevelop.telegram.chart.graph;
 import android.support.annotation.IntRange;
 import android.support.annotation.NonNull;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * X axis with lines. Every line has a dense integer id which is its position in {@link #getLines()}
+ */
 public class Graph {
     @NonNull
     private final GraphAxis xAxis;
     @NonNull
     private final List<GraphLine> lines;
+    //line label to line id
+    @NonNull
+    private final Map<String, Integer> lineIds;
 
     public Graph(@NonNull GraphAxis xAxis, @NonNull List<GraphLine> lines) {
         if (xAxis == null) {
@@ -21,6 +29,11 @@ public class Graph {
 
         this.xAxis = xAxis;
         this.lines = lines;
+        this.lineIds = new HashMap<>(lines.size());
+
+        for (int i = 0; i < lines.size(); i++) {
+            lineIds.put(lines.get(i).getLabel(), i);
+        }
     }
 
     @NonNull
@@ -33,6 +46,25 @@ public class Graph {
         return lines;
     }
 
+    /**
+     * @param lineId id of the line
+     * @return line with the provided id
+     */
+    @NonNull
+    public GraphLine getLine(int lineId) {
+        return lines.get(lineId);
+    }
+
+    /**
+     * @param label label of the line
+     * @return id of the line with the provided label or -1 if there is no such line
+     */
+    public int getLineId(@NonNull String label) {
+        final Integer id = lineIds.get(label);
+
+        return id == null ? -1 : id;
+    }
+
     /**
      * @return number of pairs (x, y) in the Graph
      */
@@ -2,15 +2,16 @@ package com.almadevelop.telegram.chart.graph;
 
 import android.support.annotation.NonNull;
 
-import java.util.List;
-
+/**
+ * X axis of the graph. Values are sorted in ascending order, but points can be unevenly spaced
+ */
 public class GraphAxis implements GraphObject {
     @NonNull
-    private final List<Long> data;
+    private final Column data;
 
     private final long topPeak, lowestPeak;
 
-    public GraphAxis(@NonNull List<Long> data, long topPeak, long lowestPeak) {
+    public GraphAxis(@NonNull Column data, long topPeak, long lowestPeak) {
         if (data == null) {
             throw new IllegalArgumentException("Axis data cannot be null");
         }
@@ -22,7 +23,7 @@ public class GraphAxis implements GraphObject {
 
     @NonNull
     @Override
-    public List<Long> getData() {
+    public Column getData() {
         return data;
     }
 
@@ -36,6 +37,33 @@ public class GraphAxis implements GraphObject {
         return lowestPeak;
     }
 
+    /**
+     * @param value axis value
+     * @return position of the last point which is not after the value or the first point
+     * @see SortedColumns#floorIndex(Column, long)
+     */
+    public int floorIndex(long value) {
+        return SortedColumns.floorIndex(data, value);
+    }
+
+    /**
+     * @param value axis value
+     * @return position of the first point which is not before the value or the last point
+     * @see SortedColumns#ceilIndex(Column, long)
+     */
+    public int ceilIndex(long value) {
+        return SortedColumns.ceilIndex(data, value);
+    }
+
+    /**
+     * @param value axis value
+     * @return position of the point closest to the value
+     * @see SortedColumns#nearestIndex(Column, long)
+     */
+    public int nearestIndex(long value) {
+        return SortedColumns.nearestIndex(data, value);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
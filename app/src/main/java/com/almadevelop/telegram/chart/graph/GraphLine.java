@@ -3,20 +3,34 @@ package com.almadevelop.telegram.chart.graph;
 import android.support.annotation.ColorInt;
 import android.support.annotation.NonNull;
 
-import java.util.List;
-
 public class GraphLine implements GraphObject {
     @NonNull
     private final String label;
     @NonNull
     private final String name;
     @NonNull
-    private final List<Long> data;
+    private final Column data;
     private final long topExtremum, lowExtremum;
     @ColorInt
     private final int color;
+    //built once with the line
+    @NonNull
+    private final RangeExtremumIndex extremumIndex;
 
-    public GraphLine(@NonNull String label, @NonNull String name, @NonNull List<Long> data, long topExtremum, long lowExtremum, @ColorInt int color) {
+    public GraphLine(@NonNull String label, @NonNull String name, @NonNull Column data, long topExtremum, long lowExtremum, @ColorInt int color) {
+        this(label, name, data, new RangeExtremumIndex(data), topExtremum, lowExtremum, color);
+    }
+
+    /**
+     * @param extremumIndex already built index of the data, e.g. read from the cache
+     */
+    public GraphLine(@NonNull String label,
+                     @NonNull String name,
+                     @NonNull Column data,
+                     @NonNull RangeExtremumIndex extremumIndex,
+                     long topExtremum,
+                     long lowExtremum,
+                     @ColorInt int color) {
         if (data == null) {
             throw new IllegalArgumentException("Data cannot be null");
         }
@@ -26,6 +40,9 @@ public class GraphLine implements GraphObject {
         if (name == null) {
             throw new IllegalArgumentException("Name cannot be null");
         }
+        if (extremumIndex == null || extremumIndex.size() != data.size()) {
+            throw new IllegalArgumentException("Extremum index should be built for the data");
+        }
 
         this.label = label;
         this.name = name;
@@ -35,11 +52,13 @@ public class GraphLine implements GraphObject {
 
         this.data = data;
         this.color = color;
+
+        this.extremumIndex = extremumIndex;
     }
 
     @NonNull
     @Override
-    public List<Long> getData() {
+    public Column getData() {
         return data;
     }
 
@@ -68,6 +87,14 @@ public class GraphLine implements GraphObject {
         return color;
     }
 
+    /**
+     * @return index to get line's extremums in a range of points and pixel columns of the decimated line
+     */
+    @NonNull
+    public RangeExtremumIndex getExtremumIndex() {
+        return extremumIndex;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
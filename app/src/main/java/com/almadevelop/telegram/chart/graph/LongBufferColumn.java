@@ -0,0 +1,89 @@
+package com.almadevelop.telegram.chart.graph;
+
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+
+import java.nio.LongBuffer;
+
+/**
+ * Read only column backed by a {@link LongBuffer}, e.g. a view of a memory mapped file.
+ * Values are not copied to the heap. Only absolute reads are used, so the column can be read
+ * from several threads
+ */
+public final class LongBufferColumn implements Column {
+    @NonNull
+    private final LongBuffer values;
+
+    private LongBufferColumn(@NonNull LongBuffer values) {
+        this.values = values;
+    }
+
+    /**
+     * Create column which uses remaining values of the buffer as a storage.
+     * The buffer should not be changed after that
+     *
+     * @param values column values
+     * @return column with the size of the buffer remaining values
+     */
+    @NonNull
+    public static LongBufferColumn wrap(@NonNull LongBuffer values) {
+        if (values == null) {
+            throw new IllegalArgumentException("Values cannot be null");
+        }
+
+        return new LongBufferColumn(values.slice());
+    }
+
+    @Override
+    @IntRange(from = 0, to = Integer.MAX_VALUE)
+    public int size() {
+        return values.limit();
+    }
+
+    @Override
+    public long get(int index) {
+        if (index < 0 || index >= values.limit()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + values.limit());
+        }
+
+        return values.get(index);
+    }
+
+    @Override
+    public void copyTo(int start, @NonNull long[] dst, int dstStart, int length) {
+        if (start < 0 || length < 0 || start + length > values.limit()) {
+            throw new IndexOutOfBoundsException("Start: " + start + ", Length: " + length + ", Size: " + values.limit());
+        }
+
+        //relative bulk get would change the shared buffer position
+        for (int i = 0; i < length; i++) {
+            dst[dstStart + i] = values.get(start + i);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        LongBufferColumn that = (LongBufferColumn) o;
+
+        return values.equals(that.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return values.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "LongBufferColumn{" +
+                "size=" + values.limit() +
+                '}';
+    }
+}
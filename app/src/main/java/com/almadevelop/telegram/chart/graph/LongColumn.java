@@ -0,0 +1,210 @@
+package com.almadevelop.telegram.chart.graph;
+
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Growable column of primitive long values.
+ * Used instead of List&lt;Long&gt; to not box every graph value
+ */
+public final class LongColumn implements Column {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    @NonNull
+    private long[] values;
+    private int size;
+
+    public LongColumn() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity initial capacity of the column
+     */
+    public LongColumn(@IntRange(from = 0, to = Integer.MAX_VALUE) int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative: " + capacity);
+        }
+
+        this.values = new long[capacity];
+    }
+
+    private LongColumn(@NonNull long[] values) {
+        this.values = values;
+        this.size = values.length;
+    }
+
+    /**
+     * Create column which uses provided array as a storage. The array should not be changed after that
+     *
+     * @param values column values
+     * @return column with the same size as array
+     */
+    @NonNull
+    public static LongColumn wrap(@NonNull long[] values) {
+        if (values == null) {
+            throw new IllegalArgumentException("Values cannot be null");
+        }
+
+        return new LongColumn(values);
+    }
+
+    /**
+     * Append value to the end of the column. Grows the column if needed
+     *
+     * @param value value to append
+     */
+    public void add(long value) {
+        if (size == values.length) {
+            grow(size + 1);
+        }
+
+        values[size++] = value;
+    }
+
+    /**
+     * @param index value position
+     * @return value at the provided position
+     * @throws IndexOutOfBoundsException if index is out of column bounds
+     */
+    @Override
+    public long get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        return values[index];
+    }
+
+    /**
+     * @return number of values in the column
+     */
+    @Override
+    @IntRange(from = 0, to = Integer.MAX_VALUE)
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of values the column can hold without growing
+     */
+    @IntRange(from = 0, to = Integer.MAX_VALUE)
+    public int capacity() {
+        return values.length;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Ensure that the column can hold at least provided number of values without growing
+     *
+     * @param minCapacity required capacity
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > values.length) {
+            grow(minCapacity);
+        }
+    }
+
+    /**
+     * Shrink column capacity to its size. Should be called after the column was filled
+     */
+    public void trimToSize() {
+        if (size < values.length) {
+            values = Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Copy column values into the provided array
+     *
+     * @param start    first column position to copy
+     * @param dst      destination array
+     * @param dstStart first destination position
+     * @param length   number of values to copy
+     * @throws IndexOutOfBoundsException if requested range is out of column bounds
+     */
+    @Override
+    public void copyTo(int start, @NonNull long[] dst, int dstStart, int length) {
+        if (start < 0 || length < 0 || start + length > size) {
+            throw new IndexOutOfBoundsException("Start: " + start + ", Length: " + length + ", Size: " + size);
+        }
+
+        System.arraycopy(values, start, dst, dstStart, length);
+    }
+
+    /**
+     * @param start first position (inclusive)
+     * @param end   last position (exclusive)
+     * @return new array with column values in the provided range
+     */
+    @NonNull
+    public long[] toArray(int start, int end) {
+        final long[] result = new long[end - start];
+
+        copyTo(start, result, 0, result.length);
+
+        return result;
+    }
+
+    private void grow(int minCapacity) {
+        //grow by half of the current capacity
+        final int newCapacity = Math.max(minCapacity, values.length + (values.length >> 1));
+
+        values = Arrays.copyOf(values, newCapacity);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        LongColumn that = (LongColumn) o;
+
+        if (size != that.size) {
+            return false;
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (values[i] != that.values[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+
+        for (int i = 0; i < size; i++) {
+            final long value = values[i];
+            result = 31 * result + (int) (value ^ (value >>> 32));
+        }
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("LongColumn{size=").append(size).append(", values=[");
+
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(values[i]);
+        }
+
+        return sb.append("]}").toString();
+    }
+}
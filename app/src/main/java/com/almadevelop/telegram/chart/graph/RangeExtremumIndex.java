@@ -0,0 +1,247 @@
+package com.almadevelop.telegram.chart.graph;
+
+import android.support.annotation.NonNull;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Answers min/max queries over [start, end) ranges of a column in O(log n).
+ * Stores min/max of value pairs, pairs of pairs and so on (bottom-up segment tree), which takes
+ * about the same memory as the column itself for mins and for maxes.
+ * <p>
+ * Bucket i of level n holds min/max of the values [i * 2^n, (i + 1) * 2^n).
+ * Levels can be written next to the column and read back as views of a mapped file without rebuilding
+ */
+public final class RangeExtremumIndex {
+    @NonNull
+    private final Column column;
+
+    //level 0 is the column itself, so arrays start from level 1
+    @NonNull
+    private final LongBuffer[] levelMax;
+    @NonNull
+    private final LongBuffer[] levelMin;
+
+    /**
+     * Build index for the column. Column should not be changed after that
+     *
+     * @param column indexed values
+     */
+    public RangeExtremumIndex(@NonNull Column column) {
+        if (column == null) {
+            throw new IllegalArgumentException("Column cannot be null");
+        }
+
+        this.column = column;
+
+        final int levelsCount = storedLevelsCount(column.size());
+
+        levelMax = new LongBuffer[levelsCount];
+        levelMin = new LongBuffer[levelsCount];
+
+        int prevSize = column.size();
+        //arrays of the previous level. Built levels are wrapped into buffers
+        long[] prevMax = null;
+        long[] prevMin = null;
+
+        for (int level = 0; level < levelsCount; level++) {
+            final int size = (prevSize + 1) >> 1;
+
+            final long[] max = new long[size];
+            final long[] min = new long[size];
+
+            for (int i = 0; i < size; i++) {
+                final int left = i << 1;
+                final int right = Math.min(left + 1, prevSize - 1);
+
+                if (level == 0) {
+                    final long leftValue = column.get(left);
+                    final long rightValue = column.get(right);
+
+                    max[i] = Math.max(leftValue, rightValue);
+                    min[i] = Math.min(leftValue, rightValue);
+                } else {
+                    //noinspection ConstantConditions
+                    max[i] = Math.max(prevMax[left], prevMax[right]);
+                    //noinspection ConstantConditions
+                    min[i] = Math.min(prevMin[left], prevMin[right]);
+                }
+            }
+
+            levelMax[level] = LongBuffer.wrap(max);
+            levelMin[level] = LongBuffer.wrap(min);
+
+            prevMax = max;
+            prevMin = min;
+            prevSize = size;
+        }
+    }
+
+    private RangeExtremumIndex(@NonNull Column column, @NonNull LongBuffer[] levelMax, @NonNull LongBuffer[] levelMin) {
+        this.column = column;
+        this.levelMax = levelMax;
+        this.levelMin = levelMin;
+    }
+
+    /**
+     * Write levels of the index. The column itself is not written. See {@link #read(Column, ByteBuffer)}
+     *
+     * @param out stream which is written from the start of the file. See {@link ColumnBuffers}
+     */
+    public void writeTo(@NonNull DataOutputStream out) throws IOException {
+        for (int level = 0; level < levelMax.length; level++) {
+            ColumnBuffers.writeLongs(out, levelMax[level]);
+            ColumnBuffers.writeLongs(out, levelMin[level]);
+        }
+    }
+
+    /**
+     * Read index written by {@link #writeTo(DataOutputStream)}. Levels are not copied,
+     * so the index is a view of the buffer
+     *
+     * @param column indexed values. Should be the same as the written ones
+     * @param buffer source buffer which starts at the start of the file. Its position is moved after the index
+     * @return index of the column
+     * @throws IllegalArgumentException if the buffer does not contain enough data
+     */
+    @NonNull
+    public static RangeExtremumIndex read(@NonNull Column column, @NonNull ByteBuffer buffer) {
+        if (column == null) {
+            throw new IllegalArgumentException("Column cannot be null");
+        }
+
+        final int levelsCount = storedLevelsCount(column.size());
+
+        final LongBuffer[] levelMax = new LongBuffer[levelsCount];
+        final LongBuffer[] levelMin = new LongBuffer[levelsCount];
+
+        int size = column.size();
+
+        for (int level = 0; level < levelsCount; level++) {
+            size = (size + 1) >> 1;
+
+            levelMax[level] = ColumnBuffers.readLongs(buffer, size);
+            levelMin[level] = ColumnBuffers.readLongs(buffer, size);
+        }
+
+        return new RangeExtremumIndex(column, levelMax, levelMin);
+    }
+
+    /**
+     * @return number of the stored levels. Level 0 is not stored
+     */
+    private static int storedLevelsCount(int columnSize) {
+        int levelsCount = 0;
+
+        for (int size = columnSize; size > 1; size = (size + 1) >> 1) {
+            levelsCount++;
+        }
+
+        return levelsCount;
+    }
+
+    /**
+     * @param start first position (inclusive)
+     * @param end   last position (exclusive)
+     * @return max value in the range or {@link Long#MIN_VALUE} if the range is empty
+     */
+    public long getMax(int start, int end) {
+        checkRange(start, end);
+
+        long max = Long.MIN_VALUE;
+
+        int level = 0;
+
+        while (start < end) {
+            if ((start & 1) != 0) {
+                max = Math.max(max, getLevelMax(level, start++));
+            }
+            if ((end & 1) != 0) {
+                max = Math.max(max, getLevelMax(level, --end));
+            }
+
+            start >>= 1;
+            end >>= 1;
+            level++;
+        }
+
+        return max;
+    }
+
+    /**
+     * @param start first position (inclusive)
+     * @param end   last position (exclusive)
+     * @return min value in the range or {@link Long#MAX_VALUE} if the range is empty
+     */
+    public long getMin(int start, int end) {
+        checkRange(start, end);
+
+        long min = Long.MAX_VALUE;
+
+        int level = 0;
+
+        while (start < end) {
+            if ((start & 1) != 0) {
+                min = Math.min(min, getLevelMin(level, start++));
+            }
+            if ((end & 1) != 0) {
+                min = Math.min(min, getLevelMin(level, --end));
+            }
+
+            start >>= 1;
+            end >>= 1;
+            level++;
+        }
+
+        return min;
+    }
+
+    /**
+     * @return number of indexed values
+     */
+    public int size() {
+        return column.size();
+    }
+
+    /**
+     * @return number of detail levels. Level 0 is the column itself
+     */
+    public int levelsCount() {
+        return levelMax.length + 1;
+    }
+
+    /**
+     * @param level detail level
+     * @return number of buckets at the level
+     */
+    public int levelSize(int level) {
+        return level == 0 ? column.size() : levelMax[level - 1].limit();
+    }
+
+    /**
+     * @param level  detail level
+     * @param bucket bucket position at the level
+     * @return max value of the bucket
+     */
+    public long getLevelMax(int level, int bucket) {
+        return level == 0 ? column.get(bucket) : levelMax[level - 1].get(bucket);
+    }
+
+    /**
+     * @param level  detail level
+     * @param bucket bucket position at the level
+     * @return min value of the bucket
+     */
+    public long getLevelMin(int level, int bucket) {
+        return level == 0 ? column.get(bucket) : levelMin[level - 1].get(bucket);
+    }
+
+    private void checkRange(int start, int end) {
+        if (start < 0 || end > column.size() || start > end) {
+            throw new IndexOutOfBoundsException("Start: " + start + ", End: " + end + ", Size: " + column.size());
+        }
+    }
+}
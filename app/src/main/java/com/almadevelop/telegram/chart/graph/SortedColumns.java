@@ -0,0 +1,97 @@
+package com.almadevelop.telegram.chart.graph;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Binary search over columns sorted in ascending order, e.g. x axis timestamps.
+ * Points do not need to be evenly spaced. Every search takes O(log n) {@link Column#get(int)} calls
+ */
+public final class SortedColumns {
+    private SortedColumns() {
+    }
+
+    /**
+     * @param column sorted column
+     * @param value  value to search
+     * @return position of the last value which is less or equal to the provided one,
+     * 0 if all values are greater or -1 if the column is empty
+     */
+    public static int floorIndex(@NonNull Column column, long value) {
+        int low = 0;
+        int high = column.size() - 1;
+
+        if (high < 0) {
+            return -1;
+        }
+
+        //column[low] <= value is kept while low < high
+        if (column.get(low) > value) {
+            return 0;
+        }
+
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+
+            if (column.get(mid) <= value) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * @param column sorted column
+     * @param value  value to search
+     * @return position of the first value which is greater or equal to the provided one,
+     * last position if all values are less or -1 if the column is empty
+     */
+    public static int ceilIndex(@NonNull Column column, long value) {
+        int low = 0;
+        int high = column.size() - 1;
+
+        if (high < 0) {
+            return -1;
+        }
+
+        //column[high] >= value is kept while low < high
+        if (column.get(high) < value) {
+            return high;
+        }
+
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+
+            if (column.get(mid) >= value) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+
+        return high;
+    }
+
+    /**
+     * @param column sorted column
+     * @param value  value to search
+     * @return position of the value which is the closest to the provided one or -1 if the column is empty
+     */
+    public static int nearestIndex(@NonNull Column column, long value) {
+        final int floor = floorIndex(column, value);
+
+        if (floor < 0 || floor == column.size() - 1) {
+            return floor;
+        }
+
+        final long floorValue = column.get(floor);
+
+        if (floorValue >= value) {
+            return floor;
+        }
+
+        return column.get(floor + 1) - value < value - floorValue ? floor + 1 : floor;
+    }
+}
@@ -0,0 +1,359 @@
+package com.almadevelop.telegram.chart.graph;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * Compressed column for the x axis timestamps.
+ * If timestamps go up by a constant step only the first value and the step are stored.
+ * Otherwise values are stored as zigzag varint encoded delta-of-deltas with a checkpoint every
+ * {@link #BLOCK_SIZE} values, so any value is decoded from the nearest checkpoint.
+ * <p>
+ * The encoding can be written as is and read back as views of a mapped file without decoding.
+ * Only absolute reads of the buffers are used, so the column can be read from several threads
+ */
+public final class TimestampColumn implements Column {
+    private static final int BLOCK_SHIFT = 6;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+    private final int size;
+    private final long base;
+    private final long step;
+
+    //null if the column has constant step
+    @Nullable
+    private final ByteBuffer encoded;
+    //values, deltas and encoded offsets at the first position of each block
+    @Nullable
+    private final LongBuffer blockValues;
+    @Nullable
+    private final LongBuffer blockDeltas;
+    @Nullable
+    private final IntBuffer blockOffsets;
+
+    private TimestampColumn(int size, long base, long step) {
+        this.size = size;
+        this.base = base;
+        this.step = step;
+
+        this.encoded = null;
+        this.blockValues = null;
+        this.blockDeltas = null;
+        this.blockOffsets = null;
+    }
+
+    private TimestampColumn(int size,
+                            long base,
+                            @NonNull ByteBuffer encoded,
+                            @NonNull LongBuffer blockValues,
+                            @NonNull LongBuffer blockDeltas,
+                            @NonNull IntBuffer blockOffsets) {
+        this.size = size;
+        this.base = base;
+        this.step = 0;
+
+        this.encoded = encoded;
+        this.blockValues = blockValues;
+        this.blockDeltas = blockDeltas;
+        this.blockOffsets = blockOffsets;
+    }
+
+    /**
+     * Compress provided values
+     *
+     * @param values column to compress
+     * @return compressed column with the same values
+     */
+    @NonNull
+    public static TimestampColumn compress(@NonNull Column values) {
+        final int size = values.size();
+
+        if (size == 0) {
+            return new TimestampColumn(0, 0, 0);
+        }
+
+        final long base = values.get(0);
+        final long step = size > 1 ? values.get(1) - base : 0;
+
+        boolean constantStep = true;
+
+        for (int i = 2; i < size && constantStep; i++) {
+            constantStep = values.get(i) - values.get(i - 1) == step;
+        }
+
+        if (constantStep) {
+            return new TimestampColumn(size, base, step);
+        }
+
+        final int blocksCount = ((size - 1) >> BLOCK_SHIFT) + 1;
+
+        final long[] blockValues = new long[blocksCount];
+        final long[] blockDeltas = new long[blocksCount];
+        final int[] blockOffsets = new int[blocksCount];
+
+        //most of delta-of-deltas fit in a single byte
+        byte[] encoded = new byte[size + 16];
+        int offset = 0;
+
+        long prevValue = base;
+        long prevDelta = 0;
+
+        for (int i = 0; i < size; i++) {
+            final long value = values.get(i);
+            final long delta = i == 0 ? 0 : value - prevValue;
+
+            if (i > 0) {
+                if (offset + 10 > encoded.length) {
+                    encoded = Arrays.copyOf(encoded, encoded.length + (encoded.length >> 1) + 10);
+                }
+
+                //zigzag encoding to keep small negative values small
+                final long deltaOfDelta = delta - prevDelta;
+                long zigzag = (deltaOfDelta << 1) ^ (deltaOfDelta >> 63);
+
+                while ((zigzag & ~0x7FL) != 0) {
+                    encoded[offset++] = (byte) ((zigzag & 0x7F) | 0x80);
+                    zigzag >>>= 7;
+                }
+                encoded[offset++] = (byte) zigzag;
+            }
+
+            if ((i & (BLOCK_SIZE - 1)) == 0) {
+                final int block = i >> BLOCK_SHIFT;
+
+                blockValues[block] = value;
+                blockDeltas[block] = delta;
+                //offset of the next value
+                blockOffsets[block] = offset;
+            }
+
+            prevValue = value;
+            prevDelta = delta;
+        }
+
+        return new TimestampColumn(size,
+                base,
+                ByteBuffer.wrap(Arrays.copyOf(encoded, offset)),
+                LongBuffer.wrap(blockValues),
+                LongBuffer.wrap(blockDeltas),
+                IntBuffer.wrap(blockOffsets));
+    }
+
+    /**
+     * Write the encoded column. See {@link #read(ByteBuffer)}
+     *
+     * @param out stream which is written from the start of the file. See {@link ColumnBuffers}
+     */
+    public void writeTo(@NonNull DataOutputStream out) throws IOException {
+        out.writeInt(size);
+        out.writeLong(base);
+        out.writeLong(step);
+
+        if (encoded == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        out.writeInt(encoded.limit());
+
+        //noinspection ConstantConditions
+        ColumnBuffers.writeLongs(out, blockValues);
+        //noinspection ConstantConditions
+        ColumnBuffers.writeLongs(out, blockDeltas);
+        //noinspection ConstantConditions
+        ColumnBuffers.writeInts(out, blockOffsets);
+
+        for (int i = 0; i < encoded.limit(); i++) {
+            out.writeByte(encoded.get(i));
+        }
+    }
+
+    /**
+     * Read column written by {@link #writeTo(DataOutputStream)}. The encoding is not copied,
+     * so the column is a view of the buffer
+     *
+     * @param buffer source buffer which starts at the start of the file. Its position is moved after the column
+     * @return column with the written values
+     * @throws IllegalArgumentException if the buffer does not contain a valid column
+     */
+    @NonNull
+    public static TimestampColumn read(@NonNull ByteBuffer buffer) {
+        final int size = buffer.getInt();
+        final long base = buffer.getLong();
+        final long step = buffer.getLong();
+        final int encodedLength = buffer.getInt();
+
+        if (size < 0) {
+            throw new IllegalArgumentException("Broken timestamp column size: " + size);
+        }
+
+        if (encodedLength < 0) {
+            return new TimestampColumn(size, base, step);
+        }
+
+        if (size == 0) {
+            throw new IllegalArgumentException("Empty timestamp column cannot be encoded");
+        }
+
+        //a value takes at least a byte, so the encoding cannot be shorter than the values
+        if (encodedLength < size - 1) {
+            throw new IllegalArgumentException("Broken timestamp column encoding: " + encodedLength + " bytes for " + size + " values");
+        }
+
+        final int blocksCount = ((size - 1) >> BLOCK_SHIFT) + 1;
+
+        final LongBuffer blockValues = ColumnBuffers.readLongs(buffer, blocksCount);
+        final LongBuffer blockDeltas = ColumnBuffers.readLongs(buffer, blocksCount);
+        final IntBuffer blockOffsets = ColumnBuffers.readInts(buffer, blocksCount);
+        final ByteBuffer encoded = ColumnBuffers.readBytes(buffer, encodedLength);
+
+        return new TimestampColumn(size, base, encoded, blockValues, blockDeltas, blockOffsets);
+    }
+
+    /**
+     * @return true if all values go up by the same step
+     */
+    public boolean hasConstantStep() {
+        return encoded == null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long get(int index) {
+        checkRange(index, 1);
+
+        if (encoded == null) {
+            return base + step * index;
+        }
+
+        //noinspection ConstantConditions
+        final int block = index >> BLOCK_SHIFT;
+
+        long value = blockValues.get(block);
+        long delta = blockDeltas.get(block);
+        int offset = blockOffsets.get(block);
+
+        for (int i = block << BLOCK_SHIFT; i < index; i++) {
+            long zigzag = 0;
+            int shift = 0;
+            byte b;
+
+            do {
+                b = encoded.get(offset++);
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            delta += (zigzag >>> 1) ^ -(zigzag & 1);
+            value += delta;
+        }
+
+        return value;
+    }
+
+    @Override
+    public void copyTo(int start, @NonNull long[] dst, int dstStart, int length) {
+        checkRange(start, length);
+
+        if (length == 0) {
+            return;
+        }
+
+        if (encoded == null) {
+            for (int i = 0; i < length; i++) {
+                dst[dstStart + i] = base + step * (start + i);
+            }
+            return;
+        }
+
+        //noinspection ConstantConditions
+        final int block = start >> BLOCK_SHIFT;
+
+        long value = blockValues.get(block);
+        long delta = blockDeltas.get(block);
+        int offset = blockOffsets.get(block);
+
+        final int end = start + length;
+
+        //decode sequentially from the block start. Stream is continuous between blocks
+        for (int i = block << BLOCK_SHIFT; i < end; i++) {
+            if (i >= start) {
+                dst[dstStart + i - start] = value;
+            }
+
+            if (i + 1 < end) {
+                long zigzag = 0;
+                int shift = 0;
+                byte b;
+
+                do {
+                    b = encoded.get(offset++);
+                    zigzag |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+
+                delta += (zigzag >>> 1) ^ -(zigzag & 1);
+                value += delta;
+            }
+        }
+    }
+
+    private void checkRange(int start, int length) {
+        if (start < 0 || length < 0 || start + length > size) {
+            throw new IndexOutOfBoundsException("Start: " + start + ", Length: " + length + ", Size: " + size);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        TimestampColumn that = (TimestampColumn) o;
+
+        if (size != that.size) {
+            return false;
+        }
+        if (base != that.base) {
+            return false;
+        }
+        if (step != that.step) {
+            return false;
+        }
+        return encoded == null ? that.encoded == null : encoded.equals(that.encoded);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = size;
+        result = 31 * result + (int) (base ^ (base >>> 32));
+        result = 31 * result + (int) (step ^ (step >>> 32));
+        result = 31 * result + (encoded == null ? 0 : encoded.hashCode());
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "TimestampColumn{" +
+                "size=" + size +
+                ", base=" + base +
+                ", step=" + step +
+                ", encodedBytes=" + (encoded == null ? 0 : encoded.limit()) +
+                '}';
+    }
+}
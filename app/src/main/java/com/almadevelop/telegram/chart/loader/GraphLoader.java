@@ -0,0 +1,272 @@
+package com.almadevelop.telegram.chart.loader;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.RawRes;
+
+import com.almadevelop.telegram.chart.cache.GraphCache;
+import com.almadevelop.telegram.chart.graph.Graph;
+import com.almadevelop.telegram.chart.parser.GraphRootParser;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads graphs from raw resources on the background thread and delivers them to the main thread.
+ * Parsed graphs are stored in {@link GraphCache}, so next loads of the same resource skip json parsing
+ */
+public final class GraphLoader {
+    private static final String TAG = "GraphLoader";
+
+    @NonNull
+    private final Resources res;
+    @NonNull
+    private final GraphCache cache;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private LoadTask currentTask;
+
+    public GraphLoader(@NonNull Context context) {
+        if (context == null) {
+            throw new IllegalArgumentException("Context cannot be null");
+        }
+
+        this.res = context.getResources();
+        this.cache = new GraphCache(context.getCacheDir());
+    }
+
+    /**
+     * Start loading of the graph. Previous load is cancelled
+     *
+     * @param rawResId   raw resource with graphs json
+     * @param graphIndex position of the graph in the json root array
+     * @param callback   receives the result on the main thread
+     */
+    @MainThread
+    public void load(@RawRes int rawResId, int graphIndex, @NonNull Callback callback) {
+        if (callback == null) {
+            throw new IllegalArgumentException("Callback cannot be null");
+        }
+        if (executor.isShutdown()) {
+            throw new IllegalStateException("Loader was destroyed");
+        }
+
+        cancel();
+
+        final LoadTask task = new LoadTask(rawResId, graphIndex, callback);
+        task.future = executor.submit(task);
+
+        currentTask = task;
+    }
+
+    /**
+     * Cancel current load. Callback will not be called after this method returns
+     */
+    @MainThread
+    public void cancel() {
+        if (currentTask != null) {
+            currentTask.cancel();
+            currentTask = null;
+        }
+    }
+
+    /**
+     * Cancel current load and release the loader thread. The loader cannot be used after that
+     */
+    @MainThread
+    public void destroy() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    public interface Callback {
+        /**
+         * Called on the main thread when the graph was loaded
+         *
+         * @param graph loaded graph
+         */
+        @MainThread
+        void onGraphLoaded(@NonNull Graph graph);
+
+        /**
+         * Called on the main thread when the graph cannot be loaded
+         *
+         * @param e load error
+         */
+        @MainThread
+        void onGraphLoadFailed(@NonNull Exception e);
+    }
+
+    private final class LoadTask implements Runnable, GraphRootParser.Callback, GraphRootParser.InputSource {
+        @RawRes
+        private final int rawResId;
+        private final int graphIndex;
+        @NonNull
+        private final Callback callback;
+
+        private volatile boolean cancelled;
+
+        private Future<?> future;
+
+        private Graph graph;
+
+        LoadTask(@RawRes int rawResId, int graphIndex, @NonNull Callback callback) {
+            this.rawResId = rawResId;
+            this.graphIndex = graphIndex;
+            this.callback = callback;
+        }
+
+        @Override
+        public void run() {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+
+            try {
+                final String sourceHash = GraphCache.hash(open());
+
+                if (cancelled) {
+                    return;
+                }
+
+                graph = cache.read(sourceHash, graphIndex);
+
+                if (graph == null) {
+                    //use the fast tokenizer. The parser falls back to JsonReader by itself.
+                    //Cancelled parsing is stopped by the source stream
+                    GraphRootParser.parse(this, this, true);
+
+                    if (cancelled) {
+                        return;
+                    }
+
+                    if (graph != null) {
+                        writeCache(sourceHash, graph);
+                    }
+                }
+
+                if (graph == null) {
+                    deliverError(new IllegalArgumentException("Chart data doesn't contain graph with index " + graphIndex));
+                } else {
+                    deliverGraph(graph);
+                }
+            } catch (Exception e) {
+                deliverError(e);
+            }
+        }
+
+        @NonNull
+        @Override
+        public InputStream open() throws IOException {
+            return new CancellableInputStream(res.openRawResource(rawResId));
+        }
+
+        @Override
+        public boolean shouldParse(int index) {
+            return !cancelled && index == graphIndex;
+        }
+
+        @Override
+        public boolean onGraphParsed(int index, @NonNull Graph graph) {
+            this.graph = graph;
+            //requested graph found. Stop parsing
+            return false;
+        }
+
+        private void writeCache(@NonNull String sourceHash, @NonNull Graph graph) {
+            try {
+                cache.write(sourceHash, graphIndex, graph);
+            } catch (IOException e) {
+                //graph will be parsed again next time
+                Log.w(TAG, "Cannot write graph cache", e);
+            }
+        }
+
+        private void cancel() {
+            cancelled = true;
+
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+
+        private void deliverGraph(@NonNull final Graph graph) {
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (!cancelled) {
+                        finish();
+                        callback.onGraphLoaded(graph);
+                    }
+                }
+            });
+        }
+
+        private void deliverError(@NonNull final Exception e) {
+            if (cancelled) {
+                return;
+            }
+
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (!cancelled) {
+                        finish();
+                        callback.onGraphLoadFailed(e);
+                    }
+                }
+            });
+        }
+
+        private void finish() {
+            if (currentTask == this) {
+                currentTask = null;
+            }
+        }
+
+        /**
+         * Fails reads after the task was cancelled, so hashing and parsing stop at the next read
+         * instead of reading the rest of the source. Resource streams do not react to the thread interruption
+         */
+        private final class CancellableInputStream extends FilterInputStream {
+            CancellableInputStream(@NonNull InputStream in) {
+                super(in);
+            }
+
+            @Override
+            public int read() throws IOException {
+                checkCancelled();
+                return super.read();
+            }
+
+            @Override
+            public int read(@NonNull byte[] b, int off, int len) throws IOException {
+                checkCancelled();
+                return super.read(b, off, len);
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                checkCancelled();
+                return super.skip(n);
+            }
+
+            private void checkCancelled() throws InterruptedIOException {
+                if (cancelled) {
+                    throw new InterruptedIOException("Graph loading was cancelled");
+                }
+            }
+        }
+    }
+}
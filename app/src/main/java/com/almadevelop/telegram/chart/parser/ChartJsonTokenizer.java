@@ -0,0 +1,545 @@
+package com.almadevelop.telegram.chart.parser;
+
+import android.support.annotation.NonNull;
+import android.util.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Fast {@link JsonTokenReader} for the chart json.
+ * Reads bytes straight from the stream and parses integer numbers without creating Strings.
+ * Fractional numbers, exponents and unicode escapes are not supported, {@link UnsupportedInputException} is thrown for them.
+ * Use {@link android.util.JsonReader} for such input
+ */
+final class ChartJsonTokenizer implements JsonTokenReader {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int BUFFER_SIZE = 8192;
+
+    //scopes of the values on the stack
+    private static final int SCOPE_EMPTY_ARRAY = 0;
+    private static final int SCOPE_NONEMPTY_ARRAY = 1;
+    private static final int SCOPE_EMPTY_OBJECT = 2;
+    private static final int SCOPE_DANGLING_NAME = 3;
+    private static final int SCOPE_NONEMPTY_OBJECT = 4;
+    private static final int SCOPE_EMPTY_DOCUMENT = 5;
+    private static final int SCOPE_NONEMPTY_DOCUMENT = 6;
+
+    //already read but not consumed token
+    private static final int PEEKED_NONE = 0;
+    private static final int PEEKED_BEGIN_OBJECT = 1;
+    private static final int PEEKED_END_OBJECT = 2;
+    private static final int PEEKED_BEGIN_ARRAY = 3;
+    private static final int PEEKED_END_ARRAY = 4;
+    private static final int PEEKED_NAME = 5;
+    private static final int PEEKED_STRING = 6;
+    private static final int PEEKED_NUMBER = 7;
+    private static final int PEEKED_TRUE = 8;
+    private static final int PEEKED_FALSE = 9;
+    private static final int PEEKED_NULL = 10;
+    private static final int PEEKED_END_DOCUMENT = 11;
+
+    //null if the tokenizer reads from the byte array
+    private final InputStream in;
+
+    private final byte[] buffer;
+    private int pos;
+    private int limit;
+
+    //bytes of the string being read
+    private byte[] stringBuffer = new byte[64];
+
+    private int[] stack = new int[32];
+    private int stackSize;
+
+    private int peeked = PEEKED_NONE;
+
+    ChartJsonTokenizer(@NonNull InputStream in) {
+        if (in == null) {
+            throw new IllegalArgumentException("Input stream cannot be null");
+        }
+
+        this.in = in;
+        this.buffer = new byte[BUFFER_SIZE];
+
+        push(SCOPE_EMPTY_DOCUMENT);
+    }
+
+    /**
+     * Read json from the byte array range without copying it
+     *
+     * @param data   json bytes
+     * @param offset first json byte
+     * @param length number of json bytes
+     */
+    ChartJsonTokenizer(@NonNull byte[] data, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > data.length) {
+            throw new IndexOutOfBoundsException("Offset: " + offset + ", Length: " + length + ", Size: " + data.length);
+        }
+
+        this.in = null;
+        this.buffer = data;
+        this.pos = offset;
+        this.limit = offset + length;
+
+        push(SCOPE_EMPTY_DOCUMENT);
+    }
+
+    @Override
+    public void beginArray() throws IOException {
+        expect(PEEKED_BEGIN_ARRAY, JsonToken.BEGIN_ARRAY);
+        push(SCOPE_EMPTY_ARRAY);
+        peeked = PEEKED_NONE;
+    }
+
+    @Override
+    public void endArray() throws IOException {
+        expect(PEEKED_END_ARRAY, JsonToken.END_ARRAY);
+        stackSize--;
+        peeked = PEEKED_NONE;
+    }
+
+    @Override
+    public void beginObject() throws IOException {
+        expect(PEEKED_BEGIN_OBJECT, JsonToken.BEGIN_OBJECT);
+        push(SCOPE_EMPTY_OBJECT);
+        peeked = PEEKED_NONE;
+    }
+
+    @Override
+    public void endObject() throws IOException {
+        expect(PEEKED_END_OBJECT, JsonToken.END_OBJECT);
+        stackSize--;
+        peeked = PEEKED_NONE;
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        final int p = peekInternal();
+        return p != PEEKED_END_OBJECT && p != PEEKED_END_ARRAY && p != PEEKED_END_DOCUMENT;
+    }
+
+    @NonNull
+    @Override
+    public JsonToken peek() throws IOException {
+        switch (peekInternal()) {
+            case PEEKED_BEGIN_OBJECT:
+                return JsonToken.BEGIN_OBJECT;
+            case PEEKED_END_OBJECT:
+                return JsonToken.END_OBJECT;
+            case PEEKED_BEGIN_ARRAY:
+                return JsonToken.BEGIN_ARRAY;
+            case PEEKED_END_ARRAY:
+                return JsonToken.END_ARRAY;
+            case PEEKED_NAME:
+                return JsonToken.NAME;
+            case PEEKED_STRING:
+                return JsonToken.STRING;
+            case PEEKED_NUMBER:
+                return JsonToken.NUMBER;
+            case PEEKED_TRUE:
+            case PEEKED_FALSE:
+                return JsonToken.BOOLEAN;
+            case PEEKED_NULL:
+                return JsonToken.NULL;
+            case PEEKED_END_DOCUMENT:
+                return JsonToken.END_DOCUMENT;
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    @NonNull
+    @Override
+    public String nextName() throws IOException {
+        expect(PEEKED_NAME, JsonToken.NAME);
+        peeked = PEEKED_NONE;
+        return readString();
+    }
+
+    @NonNull
+    @Override
+    public String nextString() throws IOException {
+        expect(PEEKED_STRING, JsonToken.STRING);
+        peeked = PEEKED_NONE;
+        return readString();
+    }
+
+    @Override
+    public long nextLong() throws IOException {
+        expect(PEEKED_NUMBER, JsonToken.NUMBER);
+        peeked = PEEKED_NONE;
+
+        int c = nextByte();
+
+        final boolean negative = c == '-';
+        if (negative) {
+            c = nextByte();
+        }
+
+        if (c < '0' || c > '9') {
+            throw syntaxError("Expected digit");
+        }
+
+        //accumulate negative value to be able to parse Long.MIN_VALUE
+        long value = 0;
+
+        while (true) {
+            if (c >= '0' && c <= '9') {
+                final int digit = c - '0';
+
+                if (value < (Long.MIN_VALUE + digit) / 10) {
+                    throw new UnsupportedInputException("Number is out of long range");
+                }
+
+                value = value * 10 - digit;
+            } else if (c == '.' || c == 'e' || c == 'E') {
+                throw new UnsupportedInputException("Only integer numbers are supported");
+            } else {
+                if (c != -1) {
+                    //return delimiter back
+                    pos--;
+                }
+                break;
+            }
+
+            c = nextByte();
+        }
+
+        if (negative) {
+            return value;
+        } else if (value == Long.MIN_VALUE) {
+            throw new UnsupportedInputException("Number is out of long range");
+        } else {
+            return -value;
+        }
+    }
+
+    @Override
+    public void skipValue() throws IOException {
+        int depth = 0;
+
+        do {
+            switch (peekInternal()) {
+                case PEEKED_BEGIN_ARRAY:
+                    push(SCOPE_EMPTY_ARRAY);
+                    depth++;
+                    break;
+                case PEEKED_BEGIN_OBJECT:
+                    push(SCOPE_EMPTY_OBJECT);
+                    depth++;
+                    break;
+                case PEEKED_END_ARRAY:
+                case PEEKED_END_OBJECT:
+                    if (depth == 0) {
+                        throw new IllegalStateException("Nothing to skip at the end of the scope");
+                    }
+                    stackSize--;
+                    depth--;
+                    break;
+                case PEEKED_NAME:
+                case PEEKED_STRING:
+                    skipString();
+                    break;
+                case PEEKED_NUMBER:
+                    skipNumber();
+                    break;
+                case PEEKED_END_DOCUMENT:
+                    throw new IllegalStateException("Nothing to skip at the end of the document");
+                default:
+                    //literals are consumed by peek
+                    break;
+            }
+
+            peeked = PEEKED_NONE;
+        } while (depth != 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        peeked = PEEKED_NONE;
+        stackSize = 0;
+
+        if (in != null) {
+            in.close();
+        }
+    }
+
+    private int peekInternal() throws IOException {
+        if (peeked == PEEKED_NONE) {
+            peeked = doPeek();
+        }
+        return peeked;
+    }
+
+    private void expect(int expected, @NonNull JsonToken token) throws IOException {
+        if (peekInternal() != expected) {
+            throw new IllegalStateException("Expected " + token + " but was " + peek() + " at offset " + pos);
+        }
+    }
+
+    private int doPeek() throws IOException {
+        final int scope = stack[stackSize - 1];
+
+        switch (scope) {
+            case SCOPE_EMPTY_ARRAY:
+                stack[stackSize - 1] = SCOPE_NONEMPTY_ARRAY;
+                break;
+            case SCOPE_NONEMPTY_ARRAY: {
+                final int c = nextNonWhitespace();
+                if (c == ']') {
+                    return PEEKED_END_ARRAY;
+                } else if (c != ',') {
+                    throw syntaxError("Unterminated array");
+                }
+                break;
+            }
+            case SCOPE_EMPTY_OBJECT:
+            case SCOPE_NONEMPTY_OBJECT: {
+                stack[stackSize - 1] = SCOPE_DANGLING_NAME;
+
+                if (scope == SCOPE_NONEMPTY_OBJECT) {
+                    final int c = nextNonWhitespace();
+                    if (c == '}') {
+                        return PEEKED_END_OBJECT;
+                    } else if (c != ',') {
+                        throw syntaxError("Unterminated object");
+                    }
+                }
+
+                final int c = nextNonWhitespace();
+                if (c == '"') {
+                    return PEEKED_NAME;
+                } else if (c == '}' && scope == SCOPE_EMPTY_OBJECT) {
+                    return PEEKED_END_OBJECT;
+                } else {
+                    throw syntaxError("Expected name");
+                }
+            }
+            case SCOPE_DANGLING_NAME:
+                stack[stackSize - 1] = SCOPE_NONEMPTY_OBJECT;
+
+                if (nextNonWhitespace() != ':') {
+                    throw syntaxError("Expected ':'");
+                }
+                break;
+            case SCOPE_EMPTY_DOCUMENT:
+                stack[stackSize - 1] = SCOPE_NONEMPTY_DOCUMENT;
+                break;
+            case SCOPE_NONEMPTY_DOCUMENT:
+                if (nextNonWhitespaceOrEnd() == -1) {
+                    return PEEKED_END_DOCUMENT;
+                }
+                throw syntaxError("Multiple root values");
+            default:
+                throw new IllegalStateException("Unsupported scope " + scope);
+        }
+
+        final int c = nextNonWhitespace();
+
+        switch (c) {
+            case ']':
+                if (scope == SCOPE_EMPTY_ARRAY) {
+                    return PEEKED_END_ARRAY;
+                }
+                throw syntaxError("Unexpected value");
+            case '[':
+                return PEEKED_BEGIN_ARRAY;
+            case '{':
+                return PEEKED_BEGIN_OBJECT;
+            case '"':
+                return PEEKED_STRING;
+            case 't':
+                expectLiteral("rue");
+                return PEEKED_TRUE;
+            case 'f':
+                expectLiteral("alse");
+                return PEEKED_FALSE;
+            case 'n':
+                expectLiteral("ull");
+                return PEEKED_NULL;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    //number will be read by nextLong
+                    pos--;
+                    return PEEKED_NUMBER;
+                }
+                throw syntaxError("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    private void expectLiteral(@NonNull String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (nextByte() != rest.charAt(i)) {
+                throw syntaxError("Unexpected literal");
+            }
+        }
+    }
+
+    /**
+     * Read string content. Opening quote is already consumed
+     */
+    @NonNull
+    private String readString() throws IOException {
+        int length = 0;
+
+        while (true) {
+            int c = nextByte();
+
+            if (c == '"') {
+                break;
+            } else if (c == -1) {
+                throw syntaxError("Unterminated string");
+            } else if (c == '\\') {
+                c = readEscapeCharacter();
+            }
+
+            if (length == stringBuffer.length) {
+                stringBuffer = Arrays.copyOf(stringBuffer, length * 2);
+            }
+
+            stringBuffer[length++] = (byte) c;
+        }
+
+        return new String(stringBuffer, 0, length, UTF_8);
+    }
+
+    private int readEscapeCharacter() throws IOException {
+        final int c = nextByte();
+
+        switch (c) {
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case '"':
+            case '\\':
+            case '/':
+                return c;
+            case 'u':
+                throw new UnsupportedInputException("Unicode escapes are not supported");
+            default:
+                throw syntaxError("Invalid escape sequence");
+        }
+    }
+
+    private void skipString() throws IOException {
+        while (true) {
+            final int c = nextByte();
+
+            if (c == '"') {
+                return;
+            } else if (c == '\\') {
+                //escaped character cannot close the string
+                nextByte();
+            } else if (c == -1) {
+                throw syntaxError("Unterminated string");
+            }
+        }
+    }
+
+    private void skipNumber() throws IOException {
+        while (true) {
+            final int c = nextByte();
+
+            switch (c) {
+                case -1:
+                    return;
+                case ',':
+                case ']':
+                case '}':
+                case ' ':
+                case '\n':
+                case '\r':
+                case '\t':
+                    pos--;
+                    return;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        final int c = nextNonWhitespaceOrEnd();
+
+        if (c == -1) {
+            throw syntaxError("Unexpected end of input");
+        }
+
+        return c;
+    }
+
+    private int nextNonWhitespaceOrEnd() throws IOException {
+        while (true) {
+            final int c = nextByte();
+
+            switch (c) {
+                case ' ':
+                case '\n':
+                case '\r':
+                case '\t':
+                    break;
+                default:
+                    return c;
+            }
+        }
+    }
+
+    /**
+     * @return next byte or -1 at the end of the input
+     */
+    private int nextByte() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos++] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        if (in == null) {
+            return false;
+        }
+
+        final int read = in.read(buffer, 0, buffer.length);
+
+        if (read <= 0) {
+            //keep position after the last byte to be able to return the delimiter back
+            return false;
+        }
+
+        pos = 0;
+        limit = read;
+
+        return true;
+    }
+
+    private void push(int scope) {
+        if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+        }
+        stack[stackSize++] = scope;
+    }
+
+    private IllegalChartJsonFormat syntaxError(@NonNull String message) {
+        return new IllegalChartJsonFormat(message + " at offset " + pos);
+    }
+
+    /**
+     * Thrown when the input is valid json which cannot be read by the tokenizer
+     */
+    static final class UnsupportedInputException extends IOException {
+        UnsupportedInputException(String message) {
+            super(message);
+        }
+    }
+}
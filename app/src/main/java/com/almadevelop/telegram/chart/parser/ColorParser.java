@@ -3,7 +3,6 @@ package com.almadevelop.telegram.chart.parser;
 import android.graphics.Color;
 import android.support.annotation.ColorInt;
 import android.support.annotation.NonNull;
-import android.util.JsonReader;
 
 import java.io.IOException;
 import java.util.HashMap;
@@ -13,7 +12,7 @@ final class ColorParser {
     private ColorParser() {
     }
 
-    static Map<String, Integer> parse(@NonNull JsonReader reader) throws IOException {
+    static Map<String, Integer> parse(@NonNull JsonTokenReader reader) throws IOException {
         final Map<String, Integer> colors = new HashMap<>();
 
         reader.beginObject();
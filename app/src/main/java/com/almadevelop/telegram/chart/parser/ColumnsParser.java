@@ -1,7 +1,8 @@
 package com.almadevelop.telegram.chart.parser;
 
 import android.support.annotation.NonNull;
-import android.util.JsonReader;
+
+import com.almadevelop.telegram.chart.graph.LongColumn;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -11,7 +12,7 @@ final class ColumnsParser {
     private ColumnsParser() {
     }
 
-    static List<ParsedColumnData> parse(@NonNull JsonReader reader) throws IOException {
+    static List<ParsedColumnData> parse(@NonNull JsonTokenReader reader) throws IOException {
         final List<ParsedColumnData> columnsData = new ArrayList<>();
 
         reader.beginArray();
@@ -35,9 +36,9 @@ final class ColumnsParser {
         return columnsData;
     }
 
-    private static ParsedColumnData parseSingleColumn(@NonNull JsonReader reader) throws IOException {
+    private static ParsedColumnData parseSingleColumn(@NonNull JsonTokenReader reader) throws IOException {
         String columnLabel = null;
-        final List<Long> columnValues = new ArrayList<>();
+        final LongColumn columnValues = new LongColumn();
 
         long topPeak = 0;
         long lowerPeak = Long.MAX_VALUE;
@@ -72,6 +73,8 @@ final class ColumnsParser {
 
         reader.endArray();
 
+        columnValues.trimToSize();
+
         if (columnLabel == null) {
             throw new IllegalChartJsonFormat("The column doesn't contains label");
         }
@@ -83,11 +86,11 @@ final class ColumnsParser {
         @NonNull
         private final String label;
         @NonNull
-        private final List<Long> values;
+        private final LongColumn values;
         private final long topPeak;
         private final long lowerPeak;
 
-        private ParsedColumnData(@NonNull String label, @NonNull List<Long> values, long topPeak, long lowerPeak) {
+        private ParsedColumnData(@NonNull String label, @NonNull LongColumn values, long topPeak, long lowerPeak) {
             this.label = label;
             this.values = values;
             this.topPeak = topPeak;
@@ -100,7 +103,7 @@ final class ColumnsParser {
         }
 
         @NonNull
-        public List<Long> getValues() {
+        public LongColumn getValues() {
             return values;
         }
 
@@ -2,17 +2,25 @@ package com.almadevelop.telegram.chart.parser;
 
 import android.support.annotation.ColorInt;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.util.JsonReader;
 
 import com.almadevelop.telegram.chart.graph.Graph;
 import com.almadevelop.telegram.chart.graph.GraphAxis;
 import com.almadevelop.telegram.chart.graph.GraphLine;
+import com.almadevelop.telegram.chart.graph.LongColumn;
+import com.almadevelop.telegram.chart.graph.TimestampColumn;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import static com.almadevelop.telegram.chart.parser.Constants.COLUMN_TYPE_LINE;
 import static com.almadevelop.telegram.chart.parser.Constants.COLUMN_TYPE_X;
@@ -21,6 +29,8 @@ import static com.almadevelop.telegram.chart.parser.Constants.COLUMN_TYPE_X;
  * Contains function to parse graph json
  */
 public final class GraphRootParser {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
     private GraphRootParser() {
     }
 
@@ -32,20 +42,169 @@ public final class GraphRootParser {
      * @throws IllegalChartJsonFormat in case of invalid json format
      */
     public static List<Graph> parse(@NonNull Reader in) throws IOException {
-        final JsonReader reader = new JsonReader(in);
+        final List<Graph> graphs = new ArrayList<>();
+
+        parse(in, new Callback() {
+            @Override
+            public boolean shouldParse(int index) {
+                return true;
+            }
+
+            @Override
+            public boolean onGraphParsed(int index, @NonNull Graph graph) {
+                graphs.add(graph);
+                return true;
+            }
+        });
+
+        return graphs;
+    }
+
+    /**
+     * Parse json from {@link Reader} and return only graph with provided index.
+     * Other graphs are skipped without building and parsing stops right after the requested graph
+     *
+     * @param in    contains graph json
+     * @param index position of the graph in the root array
+     * @return parsed graph or null if json contains less graphs
+     * @throws IOException            see {@link JsonReader} docs
+     * @throws IllegalChartJsonFormat in case of invalid json format
+     */
+    @Nullable
+    public static Graph parse(@NonNull Reader in, final int index) throws IOException {
+        if (index < 0) {
+            throw new IllegalArgumentException("Graph index cannot be negative: " + index);
+        }
+
+        final Graph[] result = new Graph[1];
+
+        parse(in, new Callback() {
+            @Override
+            public boolean shouldParse(int graphIndex) {
+                return graphIndex == index;
+            }
+
+            @Override
+            public boolean onGraphParsed(int graphIndex, @NonNull Graph graph) {
+                result[0] = graph;
+                //requested graph found. Stop parsing
+                return false;
+            }
+        });
+
+        return result[0];
+    }
+
+    /**
+     * Parse json from {@link Reader} graph by graph.
+     * Each graph is passed to the callback as soon as it was parsed. Graphs which callback doesn't need
+     * are skipped at the token level
+     *
+     * @param in       contains graph json
+     * @param callback decides which graphs to parse and receives parsed graphs
+     * @throws IOException            see {@link JsonReader} docs
+     * @throws IllegalChartJsonFormat in case of invalid json format
+     */
+    public static void parse(@NonNull Reader in, @NonNull Callback callback) throws IOException {
+        parse(new JsonReaderAdapter(new JsonReader(in)), callback);
+    }
+
+    /**
+     * Parse json from the source graph by graph. Same as {@link #parse(Reader, Callback)}, but
+     * allows to use the fast byte level tokenizer. If the json cannot be read by the tokenizer
+     * (e.g. it contains fractional numbers) the source is opened again and parsing continues with
+     * {@link JsonReader} from the graph where the tokenizer has stopped
+     *
+     * @param source   opens streams with graph json (UTF-8)
+     * @param callback decides which graphs to parse and receives parsed graphs
+     * @param fastPath true to read the json with the fast tokenizer, false to use {@link JsonReader}
+     * @throws IOException            see {@link JsonReader} docs
+     * @throws IllegalChartJsonFormat in case of invalid json format
+     */
+    public static void parse(@NonNull InputSource source, @NonNull Callback callback, boolean fastPath) throws IOException {
+        if (!fastPath) {
+            parse(new InputStreamReader(source.open(), UTF_8), callback);
+            return;
+        }
+
+        final ResumableCallback resumableCallback = new ResumableCallback(callback);
+
+        try {
+            parse(new ChartJsonTokenizer(source.open()), resumableCallback);
+        } catch (ChartJsonTokenizer.UnsupportedInputException e) {
+            //fallback to the slow, but complete reader. Already delivered graphs will be skipped
+            parse(new InputStreamReader(source.open(), UTF_8), resumableCallback);
+        }
+    }
+
+    /**
+     * Parse graphs of the json in parallel. Each graph of the root array is parsed by its own executor task,
+     * graphs are passed to the callback in the original order on the calling thread.
+     * Use a fixed thread pool with a thread per core as an executor. See {@link java.util.concurrent.Executors#newFixedThreadPool(int)}
+     *
+     * @param json     graph json bytes (UTF-8)
+     * @param executor executes parse tasks
+     * @param callback decides which graphs to parse and receives parsed graphs
+     * @throws IOException            see {@link JsonReader} docs
+     * @throws IllegalChartJsonFormat in case of invalid json format
+     */
+    public static void parseParallel(@NonNull byte[] json,
+                                     @NonNull ExecutorService executor,
+                                     @NonNull Callback callback) throws IOException {
+        ParallelGraphParser.parse(json, executor, callback);
+    }
 
+    /**
+     * Read whole json from the source and parse all its graphs in parallel.
+     * See {@link #parseParallel(byte[], ExecutorService, Callback)}
+     *
+     * @param source   opens streams with graph json (UTF-8)
+     * @param executor executes parse tasks
+     * @return list of parsed graphs in the original order
+     * @throws IOException            see {@link JsonReader} docs
+     * @throws IllegalChartJsonFormat in case of invalid json format
+     */
+    public static List<Graph> parseParallel(@NonNull InputSource source, @NonNull ExecutorService executor) throws IOException {
         final List<Graph> graphs = new ArrayList<>();
 
+        parseParallel(readFully(source.open()), executor, new Callback() {
+            @Override
+            public boolean shouldParse(int index) {
+                return true;
+            }
+
+            @Override
+            public boolean onGraphParsed(int index, @NonNull Graph graph) {
+                graphs.add(graph);
+                return true;
+            }
+        });
+
+        return graphs;
+    }
+
+    private static void parse(@NonNull JsonTokenReader reader, @NonNull Callback callback) throws IOException {
         try {
             reader.beginArray();
 
+            int graphIndex = 0;
+
             readerLooper:
             while (reader.hasNext()) {
                 switch (reader.peek()) {
                     case END_ARRAY:
                         break readerLooper;
                     case BEGIN_OBJECT:
-                        graphs.add(parseSingleGraph(reader));
+                        final int index = graphIndex++;
+
+                        if (callback.shouldParse(index)) {
+                            if (!callback.onGraphParsed(index, parseSingleGraph(reader))) {
+                                //callback doesn't need other graphs
+                                return;
+                            }
+                        } else {
+                            reader.skipValue();
+                        }
                         break;
                     default:
                         reader.skipValue();
@@ -57,8 +216,22 @@ public final class GraphRootParser {
         } finally {
             reader.close();
         }
+    }
 
-        return graphs;
+    private static byte[] readFully(@NonNull InputStream in) throws IOException {
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(in.available(), 8192));
+            final byte[] buffer = new byte[8192];
+
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
     }
 
     /**
@@ -67,7 +240,7 @@ public final class GraphRootParser {
      * @param reader input JSON reader
      * @throws IOException
      */
-    private static Graph parseSingleGraph(@NonNull JsonReader reader) throws IOException {
+    static Graph parseSingleGraph(@NonNull JsonTokenReader reader) throws IOException {
         final GraphBuilder graphBuilder = new GraphBuilder();
 
         reader.beginObject();
@@ -107,6 +280,66 @@ public final class GraphRootParser {
         return graphBuilder.build();
     }
 
+    /**
+     * Receives graphs from {@link #parse(Reader, Callback)}
+     */
+    public interface Callback {
+        /**
+         * Called when the parser reached the next graph object
+         *
+         * @param index position of the graph in the root array
+         * @return true to parse the graph, false to skip it
+         */
+        boolean shouldParse(int index);
+
+        /**
+         * Called when the graph was parsed
+         *
+         * @param index position of the graph in the root array
+         * @param graph parsed graph
+         * @return true to continue parsing, false to stop it
+         */
+        boolean onGraphParsed(int index, @NonNull Graph graph);
+    }
+
+    /**
+     * Opens graph json streams
+     */
+    public interface InputSource {
+        /**
+         * @return new stream with graph json. It will be closed by the parser
+         * @throws IOException if the stream cannot be opened
+         */
+        @NonNull
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Skips graphs which were already delivered to the wrapped callback.
+     * Used to continue parsing with another reader
+     */
+    private static final class ResumableCallback implements Callback {
+        @NonNull
+        private final Callback callback;
+        //index of the first graph which wasn't delivered yet
+        private int resumeIndex;
+
+        ResumableCallback(@NonNull Callback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public boolean shouldParse(int index) {
+            return index >= resumeIndex && callback.shouldParse(index);
+        }
+
+        @Override
+        public boolean onGraphParsed(int index, @NonNull Graph graph) {
+            resumeIndex = index + 1;
+            return callback.onGraphParsed(index, graph);
+        }
+    }
+
     /**
      * Graph builderfrom parser result
      */
@@ -153,13 +386,13 @@ public final class GraphRootParser {
 
             for (ColumnsParser.ParsedColumnData columnData : columns) {
                 final String columnLabel = columnData.getLabel();
-                final List<Long> columnValues = columnData.getValues();
+                final LongColumn columnValues = columnData.getValues();
 
                 //Should return non null type
                 //noinspection ConstantConditions
                 switch (types.get(columnLabel)) {
                     case COLUMN_TYPE_X:
-                        xAxis = new GraphAxis(columnValues, columnData.getTopPeak(), columnData.getLowerPeak());
+                        xAxis = new GraphAxis(TimestampColumn.compress(columnValues), columnData.getTopPeak(), columnData.getLowerPeak());
                         break;
                     case COLUMN_TYPE_LINE: {
                         final String lineName = names.get(columnLabel);
@@ -0,0 +1,77 @@
+package com.almadevelop.telegram.chart.parser;
+
+import android.support.annotation.NonNull;
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * {@link JsonTokenReader} backed by {@link JsonReader}. Accepts any json, but decodes every value through strings
+ */
+final class JsonReaderAdapter implements JsonTokenReader {
+    @NonNull
+    private final JsonReader reader;
+
+    JsonReaderAdapter(@NonNull JsonReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public void beginArray() throws IOException {
+        reader.beginArray();
+    }
+
+    @Override
+    public void endArray() throws IOException {
+        reader.endArray();
+    }
+
+    @Override
+    public void beginObject() throws IOException {
+        reader.beginObject();
+    }
+
+    @Override
+    public void endObject() throws IOException {
+        reader.endObject();
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        return reader.hasNext();
+    }
+
+    @NonNull
+    @Override
+    public JsonToken peek() throws IOException {
+        return reader.peek();
+    }
+
+    @NonNull
+    @Override
+    public String nextName() throws IOException {
+        return reader.nextName();
+    }
+
+    @NonNull
+    @Override
+    public String nextString() throws IOException {
+        return reader.nextString();
+    }
+
+    @Override
+    public long nextLong() throws IOException {
+        return reader.nextLong();
+    }
+
+    @Override
+    public void skipValue() throws IOException {
+        reader.skipValue();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
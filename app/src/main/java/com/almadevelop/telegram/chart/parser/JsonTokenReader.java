@@ -0,0 +1,36 @@
+package com.almadevelop.telegram.chart.parser;
+
+import android.support.annotation.NonNull;
+import android.util.JsonToken;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Pull reader of json tokens used by the chart parsers.
+ * Mirrors {@link android.util.JsonReader} API so the parsers do not depend on the concrete reader
+ */
+interface JsonTokenReader extends Closeable {
+    void beginArray() throws IOException;
+
+    void endArray() throws IOException;
+
+    void beginObject() throws IOException;
+
+    void endObject() throws IOException;
+
+    boolean hasNext() throws IOException;
+
+    @NonNull
+    JsonToken peek() throws IOException;
+
+    @NonNull
+    String nextName() throws IOException;
+
+    @NonNull
+    String nextString() throws IOException;
+
+    long nextLong() throws IOException;
+
+    void skipValue() throws IOException;
+}
@@ -1,7 +1,6 @@
 package com.almadevelop.telegram.chart.parser;
 
 import android.support.annotation.NonNull;
-import android.util.JsonReader;
 
 import java.io.IOException;
 import java.util.HashMap;
@@ -11,7 +10,7 @@ final class NamesParser {
     private NamesParser() {
     }
 
-    static Map<String, String> parse(@NonNull JsonReader reader) throws IOException {
+    static Map<String, String> parse(@NonNull JsonTokenReader reader) throws IOException {
         final Map<String, String> names = new HashMap<>();
 
         reader.beginObject();
@@ -0,0 +1,212 @@
+package com.almadevelop.telegram.chart.parser;
+
+import android.support.annotation.NonNull;
+import android.util.JsonReader;
+
+import com.almadevelop.telegram.chart.graph.Graph;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Parses graphs of the root json array in parallel.
+ * Byte ranges of the root array objects are found by a structural scan, then each range is parsed
+ * by its own task
+ */
+final class ParallelGraphParser {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private ParallelGraphParser() {
+    }
+
+    static void parse(@NonNull byte[] json,
+                      @NonNull ExecutorService executor,
+                      @NonNull GraphRootParser.Callback callback) throws IOException {
+        final GraphRanges ranges = scan(json);
+
+        final List<Future<Graph>> tasks = new ArrayList<>(ranges.count);
+        final int[] indexes = new int[ranges.count];
+
+        for (int i = 0; i < ranges.count; i++) {
+            if (callback.shouldParse(i)) {
+                indexes[tasks.size()] = i;
+                tasks.add(executor.submit(new ParseTask(json, ranges.starts[i], ranges.ends[i])));
+            }
+        }
+
+        try {
+            //deliver graphs in the original order
+            for (int i = 0; i < tasks.size(); i++) {
+                if (!callback.onGraphParsed(indexes[i], await(tasks.get(i)))) {
+                    return;
+                }
+            }
+        } finally {
+            //not needed or failed graphs
+            for (Future<Graph> task : tasks) {
+                task.cancel(true);
+            }
+        }
+    }
+
+    @NonNull
+    private static Graph await(@NonNull Future<Graph> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Graph parsing was interrupted");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new IOException(cause);
+            }
+        }
+    }
+
+    /**
+     * Find byte ranges of the objects in the root json array
+     *
+     * @param json json bytes
+     * @return ranges of the root array objects
+     */
+    @NonNull
+    private static GraphRanges scan(@NonNull byte[] json) {
+        final GraphRanges ranges = new GraphRanges();
+
+        int depth = 0;
+        int objectStart = -1;
+        boolean inString = false;
+        boolean rootFound = false;
+
+        for (int i = 0; i < json.length; i++) {
+            final byte b = json[i];
+
+            if (inString) {
+                if (b == '\\') {
+                    //escaped character cannot close the string
+                    i++;
+                } else if (b == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+
+            switch (b) {
+                case ' ':
+                case '\n':
+                case '\r':
+                case '\t':
+                    break;
+                case '"':
+                    inString = true;
+                    break;
+                case '[':
+                case '{':
+                    if (depth == 0) {
+                        if (b != '[' || rootFound) {
+                            throw new IllegalChartJsonFormat("Root value should be a single array");
+                        }
+                        rootFound = true;
+                    } else if (depth == 1 && b == '{') {
+                        objectStart = i;
+                    }
+                    depth++;
+                    break;
+                case ']':
+                case '}':
+                    depth--;
+
+                    if (depth < 0) {
+                        throw new IllegalChartJsonFormat("Unexpected end of scope at offset " + i);
+                    } else if (depth == 1 && b == '}') {
+                        ranges.add(objectStart, i + 1);
+                    }
+                    break;
+                default:
+                    if (depth == 0) {
+                        throw new IllegalChartJsonFormat("Root value should be a single array");
+                    }
+                    break;
+            }
+        }
+
+        if (!rootFound || depth != 0 || inString) {
+            throw new IllegalChartJsonFormat("Unterminated root array");
+        }
+
+        return ranges;
+    }
+
+    /**
+     * Parse single graph object from the byte range
+     */
+    private static final class ParseTask implements Callable<Graph> {
+        @NonNull
+        private final byte[] json;
+        private final int start;
+        private final int end;
+
+        ParseTask(@NonNull byte[] json, int start, int end) {
+            this.json = json;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public Graph call() throws IOException {
+            try {
+                return parse(new ChartJsonTokenizer(json, start, end - start));
+            } catch (ChartJsonTokenizer.UnsupportedInputException e) {
+                //fallback to the complete reader for this graph only
+                final JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(json, start, end - start), UTF_8));
+                return parse(new JsonReaderAdapter(reader));
+            }
+        }
+
+        private static Graph parse(@NonNull JsonTokenReader reader) throws IOException {
+            try {
+                return GraphRootParser.parseSingleGraph(reader);
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Byte ranges of the graphs. Start is inclusive, end is exclusive
+     */
+    private static final class GraphRanges {
+        private int[] starts = new int[8];
+        private int[] ends = new int[8];
+        private int count;
+
+        private void add(int start, int end) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+
+            starts[count] = start;
+            ends[count] = end;
+            count++;
+        }
+    }
+}
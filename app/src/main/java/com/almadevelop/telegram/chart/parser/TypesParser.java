@@ -1,7 +1,6 @@
 package com.almadevelop.telegram.chart.parser;
 
 import android.support.annotation.NonNull;
-import android.util.JsonReader;
 
 import java.io.IOException;
 import java.util.HashMap;
@@ -14,7 +13,7 @@ final class TypesParser {
     private TypesParser() {
     }
 
-    static Map<String, Integer> parse(@NonNull JsonReader reader) throws IOException {
+    static Map<String, Integer> parse(@NonNull JsonTokenReader reader) throws IOException {
         final Map<String, Integer> types = new HashMap<>();
 
         reader.beginObject();
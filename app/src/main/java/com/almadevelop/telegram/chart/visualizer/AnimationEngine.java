@@ -0,0 +1,232 @@
+package com.almadevelop.telegram.chart.visualizer;
+
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+/**
+ * Animates float slots of all graph views by a single {@link Choreographer} frame callback.
+ * Slots can be retargeted while they are running: the slot continues from its current value
+ * without allocations and other slots are not restarted.
+ * The frame callback is posted only while there are running slots.
+ * <p>
+ * Should be used from the main thread only
+ */
+final class AnimationEngine implements Choreographer.FrameCallback {
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private static AnimationEngine instance;
+
+    //slots which are animated now
+    private final ArrayList<Slot> runningSlots = new ArrayList<>();
+    //listeners of the slots changed at the current frame
+    private final ArrayList<Listener> frameListeners = new ArrayList<>();
+
+    private boolean isTicking;
+
+    private AnimationEngine() {
+    }
+
+    /**
+     * @return engine shared by all graph views
+     */
+    @MainThread
+    @NonNull
+    static AnimationEngine getInstance() {
+        if (instance == null) {
+            instance = new AnimationEngine();
+        }
+
+        return instance;
+    }
+
+    /**
+     * @param value    initial value of the slot
+     * @param duration duration of the animation to a new target (ms)
+     * @param listener listener which is notified once per frame while the slot is running
+     * @return new slot
+     */
+    @NonNull
+    Slot newSlot(float value, long duration, @NonNull Listener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+
+        return new Slot(this, value, duration, listener);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        for (int i = runningSlots.size() - 1; i >= 0; i--) {
+            final Slot slot = runningSlots.get(i);
+
+            if (!slot.update(frameTimeNanos)) {
+                removeRunning(i);
+            }
+
+            if (!frameListeners.contains(slot.listener)) {
+                frameListeners.add(slot.listener);
+            }
+        }
+
+        for (int i = 0; i < frameListeners.size(); i++) {
+            frameListeners.get(i).onAnimationFrame();
+        }
+
+        frameListeners.clear();
+
+        if (runningSlots.isEmpty()) {
+            isTicking = false;
+        } else {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    private void start(@NonNull Slot slot) {
+        if (!slot.isRunning) {
+            slot.isRunning = true;
+            runningSlots.add(slot);
+        }
+
+        if (!isTicking) {
+            isTicking = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    private void stop(@NonNull Slot slot) {
+        if (slot.isRunning) {
+            slot.isRunning = false;
+            removeRunning(runningSlots.indexOf(slot));
+        }
+    }
+
+    /**
+     * Remove running slot without shifting the list
+     */
+    private void removeRunning(int pos) {
+        final int last = runningSlots.size() - 1;
+
+        runningSlots.get(pos).isRunning = false;
+        runningSlots.set(pos, runningSlots.get(last));
+        runningSlots.remove(last);
+    }
+
+    /**
+     * Receives changes of the slots
+     */
+    interface Listener {
+        /**
+         * Called once per frame after values of the running slots were changed
+         */
+        void onAnimationFrame();
+    }
+
+    /**
+     * Animated float value
+     */
+    static final class Slot {
+        @NonNull
+        private final AnimationEngine engine;
+        @NonNull
+        private final Listener listener;
+        private final long durationNanos;
+
+        private float value;
+        private float startValue;
+        private float target;
+        //-1 if the animation starts at the next frame
+        private long startTime;
+
+        private boolean isRunning;
+
+        private Slot(@NonNull AnimationEngine engine, float value, long duration, @NonNull Listener listener) {
+            this.engine = engine;
+            this.listener = listener;
+            this.durationNanos = duration * NANOS_PER_MILLI;
+            this.value = value;
+            this.target = value;
+        }
+
+        /**
+         * @return current value
+         */
+        float get() {
+            return value;
+        }
+
+        /**
+         * @return value the slot is animated to or the current value if the slot is not running
+         */
+        float getTarget() {
+            return target;
+        }
+
+        boolean isRunning() {
+            return isRunning;
+        }
+
+        /**
+         * Animate from the current value to the target
+         *
+         * @param target new target value
+         */
+        void animateTo(float target) {
+            if (this.target == target && (isRunning || value == target)) {
+                return;
+            }
+
+            this.startValue = value;
+            this.target = target;
+            this.startTime = -1;
+
+            engine.start(this);
+        }
+
+        /**
+         * Set value without animation. Running animation is stopped
+         *
+         * @param value new value
+         */
+        void set(float value) {
+            this.value = value;
+            this.target = value;
+
+            engine.stop(this);
+        }
+
+        /**
+         * Stop animation at the current value
+         */
+        void stop() {
+            set(value);
+        }
+
+        /**
+         * @return true if the slot is still running
+         */
+        private boolean update(long frameTimeNanos) {
+            if (startTime < 0) {
+                startTime = frameTimeNanos;
+            }
+
+            final float fraction = durationNanos > 0 ?
+                    Math.min(1.0f, (float) (frameTimeNanos - startTime) / durationNanos) :
+                    1.0f;
+
+            if (fraction >= 1.0f) {
+                //exact target to not leave any error
+                value = target;
+                return false;
+            }
+
+            //decelerate, so a retargeted slot continues without a stop
+            final float inverse = 1.0f - fraction;
+            value = startValue + (target - startValue) * (1.0f - inverse * inverse);
+
+            return true;
+        }
+    }
+}
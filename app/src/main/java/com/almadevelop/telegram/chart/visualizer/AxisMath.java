@@ -1,5 +1,8 @@
 package com.almadevelop.telegram.chart.visualizer;
 
+import android.graphics.Matrix;
+import android.support.annotation.NonNull;
+
 /**
  * Helper class to convert from axis values to pixels and vice versa
  */
@@ -10,8 +13,6 @@ class AxisMath {
     private long topValue;
     private long lowValue;
 
-    private int pointsCount;
-
     /**
      * Set axis length
      *
@@ -27,15 +28,24 @@ class AxisMath {
     /**
      * Set axis values
      *
-     * @param topValue    last axis value
-     * @param lowValue    first axis value
-     * @param pointsCount number of points at the axis
+     * @param topValue last axis value
+     * @param lowValue first axis value
      */
-    void setValues(long topValue, long lowValue, int pointsCount) {
+    void setValues(long topValue, long lowValue) {
         this.topValue = topValue;
         this.lowValue = lowValue;
+    }
 
-        this.pointsCount = pointsCount;
+    /**
+     * Copy size and values of the other axis
+     *
+     * @param other axis to copy from
+     */
+    void set(@NonNull AxisMath other) {
+        this.start = other.start;
+        this.end = other.end;
+        this.topValue = other.topValue;
+        this.lowValue = other.lowValue;
     }
 
     float length() {
@@ -49,7 +59,8 @@ class AxisMath {
      * @return pixel coordinate of the value
      */
     float valueToPixel(long value) {
-        return (((float) value - (float) lowValue) * currentPixelPerValue())+start;
+        //difference is taken before conversion to not lose precision of big values (e.g. timestamps)
+        return (float) (value - lowValue) * currentPixelPerValue() + start;
     }
 
     /**
@@ -59,25 +70,17 @@ class AxisMath {
      * @return axis value
      */
     long pixelToValue(float pixel) {
-        return (long) (checkPixel(pixel) * (topValue - lowValue) / length()) + lowValue;
-    }
-
-    float pixelPerPoint() {
-        return length() / (float) (pointsCount - 1);
+        return (long) ((double) checkPixel(pixel) * (topValue - lowValue) / length()) + lowValue;
     }
 
     /**
-     * Convert provided pixel position to the point position at the axis
+     * Convert length at the axis to the length in axis values
      *
-     * @param pixel pixel value to convert
-     * @return
+     * @param pixels length in pixels
+     * @return length in axis values
      */
-    float pixelToPointPosition(float pixel) {
-        return checkPixel(pixel) / pixelPerPoint();
-    }
-
-    int pixelToRoundPointPosition(float pixel) {
-        return Math.round(pixelToPointPosition(pixel));
+    double pixelsToValues(float pixels) {
+        return (double) pixels * (topValue - lowValue) / length();
     }
 
     /**
@@ -101,6 +104,28 @@ class AxisMath {
         return length() / (float) (topValue - lowValue);
     }
 
+    /**
+     * Set matrix which moves pixel positions of the current axis values to the positions they have
+     * when the axis has provided values. Only Y axis is supported
+     *
+     * @param matrix   matrix to set
+     * @param topValue top value to move to
+     * @param lowValue low value to move to
+     */
+    void setValuesTransform(@NonNull Matrix matrix, double topValue, double lowValue) {
+        final double valuesLength = topValue - lowValue;
+
+        if (valuesLength == 0.0) {
+            matrix.reset();
+            return;
+        }
+
+        final float scale = (float) ((this.topValue - this.lowValue) / valuesLength);
+
+        matrix.setScale(1.0f, scale, 0.0f, start);
+        matrix.postTranslate(0.0f, (float) ((this.lowValue - lowValue) * length() / valuesLength));
+    }
+
     private float checkPixel(float pixel) {
         return pixel - start;
     }
@@ -0,0 +1,119 @@
+package com.almadevelop.telegram.chart.visualizer;
+
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.almadevelop.telegram.chart.graph.Column;
+
+/**
+ * Read only range of a graph column. Values are not copied.
+ * Instances are reused, so the view can be moved to another range or column
+ */
+final class ColumnView implements Column {
+    @Nullable
+    private Column column;
+    private int offset;
+    private int size;
+
+    /**
+     * Show range of the column
+     *
+     * @param column backing column
+     * @param offset first column position of the view
+     * @param size   number of values in the view
+     * @throws IndexOutOfBoundsException if requested range is out of column bounds
+     */
+    void set(@NonNull Column column, int offset, int size) {
+        if (column == null) {
+            throw new IllegalArgumentException("Column cannot be null");
+        }
+        if (offset < 0 || size < 0 || offset + size > column.size()) {
+            throw new IndexOutOfBoundsException("Offset: " + offset + ", Size: " + size + ", Column size: " + column.size());
+        }
+
+        this.column = column;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    /**
+     * @return first column position of the view
+     */
+    int getOffset() {
+        return offset;
+    }
+
+    @Override
+    @IntRange(from = 0, to = Integer.MAX_VALUE)
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        //size is 0 while column is not set
+        //noinspection ConstantConditions
+        return column.get(offset + index);
+    }
+
+    @Override
+    public void copyTo(int start, @NonNull long[] dst, int dstStart, int length) {
+        if (start < 0 || length < 0 || start + length > size) {
+            throw new IndexOutOfBoundsException("Start: " + start + ", Length: " + length + ", Size: " + size);
+        }
+
+        if (length > 0) {
+            //noinspection ConstantConditions
+            column.copyTo(offset + start, dst, dstStart, length);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        ColumnView that = (ColumnView) o;
+
+        if (size != that.size) {
+            return false;
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (get(i) != that.get(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+
+        for (int i = 0; i < size; i++) {
+            final long value = get(i);
+            result = 31 * result + (int) (value ^ (value >>> 32));
+        }
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnView{" +
+                "offset=" + offset +
+                ", size=" + size +
+                '}';
+    }
+}
@@ -1,46 +1,36 @@
 package com.almadevelop.telegram.chart.visualizer;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
-import android.animation.PropertyValuesHolder;
-import android.animation.ValueAnimator;
 import android.content.res.Resources;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Matrix;
 import android.graphics.Paint;
-import android.graphics.Path;
-import android.graphics.PathMeasure;
-import android.graphics.PorterDuff;
-import android.graphics.PorterDuffXfermode;
 import android.graphics.RectF;
-import android.graphics.Xfermode;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.annotation.ColorInt;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
 import android.util.TypedValue;
+import android.view.Choreographer;
 import android.view.MotionEvent;
 import android.view.View;
 
-import com.almadevelop.telegram.chart.Utils;
 import com.almadevelop.telegram.chart.graph.Graph;
+import com.almadevelop.telegram.chart.graph.GraphAxis;
 import com.almadevelop.telegram.chart.graph.GraphLine;
-import com.almadevelop.telegram.chart.graph.GraphObject;
+import com.almadevelop.telegram.chart.graph.RangeExtremumIndex;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 class GraphController implements View.OnTouchListener {
-    private static final String HOLDER_LINE_ALPHA_PREFIX = "line_alpha_";
-    private static final String HOLDER_TOP = "top";
-    private static final String HOLDER_BOTTOM = "bottom";
-
-    private static final int TRANSITION_HIDE = 0;
-    private static final int TRANSITION_SHOW = 1;
-
-    private final RectF lineBoundsTemp = new RectF();
+    //duration of the lines visibility and y values animation (ms)
+    private static final long LINES_ANIMATION_DURATION = 1000;
 
     @NonNull
     private final Graph graph;
@@ -57,27 +47,65 @@ class GraphController implements View.OnTouchListener {
     private final SelectedWindow selectedWindow;
     private final Touch touch;
 
-    private final Map<String, GraphLinePath> lines;
-    private final Map<String, Integer> linesInTransition;
-    private final SortedMap<Long, Integer> extremums;
+    //per line state. Indexed by the graph line id
+    private final GraphLinePath[] lines;
+    private boolean isLinesBuilt;
+    private final AnimationEngine.Slot[] lineAlphas;
+    //y extremums of the visible lines
+    private final LineExtremums extremums;
+
+    //windows are calculated on the worker thread. Only the latest requested window is shown
+    private final WindowBuffer[] windowBuffers;
+    private int calculatedBuffer;
+    private volatile int selectionGeneration;
+    private boolean isWindowCalculating;
+
+    private final Executor windowExecutor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
-    private final Path[] tempShowedPath;
+    @NonNull
+    private LineRenderer lineRenderer = LineRenderer.PATH;
+
+    //decimators of the selected window lines. Used on the worker thread only
+    private final MinMaxDecimator[] decimators;
+    //decimators of the whole lines. Used on the main thread only
+    private final MinMaxDecimator[] lineDecimators;
 
+    //transformation from the lines geometry to the shown y values. Applied to the vertices at the draw time
     private final Matrix lineMatrix = new Matrix();
 
+    //lines are drawn to the bitmap only if they were changed. Selected window changes only blit it
+    private Bitmap linesBitmap;
+    private Canvas linesCanvas;
+    private boolean isLinesBitmapDirty = true;
+
     private View view;
 
     private final RectF graphBounds = new RectF();
     //bounds of lines what should be
     private final RectF expectedLinesBounds = new RectF();
-    //actual lines bounds
-    private final RectF currentLinesBounds = new RectF();
+
+    //y values which are shown now. They differ from the y axis values while the lines are animated
+    private double shownTopExtremum;
+    private double shownLowExtremum;
+    //shown y values at the start of the animation
+    private double startTopExtremum;
+    private double startLowExtremum;
 
     private final AxisMath xMath = new AxisMath();
     private final AxisMath yMath = new AxisMath();
 
-    private ValueAnimator linesAnimator;
-    private Animator.AnimatorListener linesAnimatorListener;
+    private final AnimationEngine.Listener linesAnimationListener = this::onLinesAnimationFrame;
+    //fraction (0..1) of the shown y values animation. Values are interpolated in double, because float
+    //is not precise enough for large values
+    private final AnimationEngine.Slot shownFractionSlot;
+
+    //selected window is sent at most once per frame while it is dragged
+    private final Choreographer.FrameCallback sendSelectionCallback = frameTimeNanos -> {
+        isSelectionScheduled = false;
+        sendSelectedWindow();
+    };
+    private boolean isSelectionScheduled;
 
     GraphController(@NonNull Graph graph,
                     @NonNull Resources res,
@@ -94,7 +122,6 @@ class GraphController implements View.OnTouchListener {
 
         this.linePaint.setStyle(Paint.Style.STROKE);
         this.linePaint.setStrokeWidth(lineWidth);
-        this.linePaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.DST_OVER));
 
         this.notSelectedPaint.setStyle(Paint.Style.FILL);
         this.notSelectedPaint.setColor(notSelectedColor);
@@ -102,15 +129,40 @@ class GraphController implements View.OnTouchListener {
         this.selectedWindow = new SelectedWindow(res, selectedColor);
         this.touch = new Touch(touchColor);
 
-        this.lines = new HashMap<>(graph.linesCount());
+        this.lines = new GraphLinePath[graph.linesCount()];
+
+        this.lineAlphas = new AnimationEngine.Slot[graph.linesCount()];
+
+        this.extremums = new LineExtremums(graph.getLines());
+
+        this.windowBuffers = new WindowBuffer[]{new WindowBuffer(graph.linesCount()), new WindowBuffer(graph.linesCount())};
+
+        //single thread which is stopped when there is nothing to calculate.
+        //At most one calculation is queued, so the array queue is enough
+        final ThreadPoolExecutor windowExecutor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1));
+        windowExecutor.allowCoreThreadTimeOut(true);
+        this.windowExecutor = windowExecutor;
+
+        this.decimators = new MinMaxDecimator[graph.linesCount()];
+        this.lineDecimators = new MinMaxDecimator[graph.linesCount()];
+
+        for (int i = 0; i < graph.linesCount(); i++) {
+            decimators[i] = new MinMaxDecimator(graph.getLines().get(i).getExtremumIndex());
+            lineDecimators[i] = new MinMaxDecimator(graph.getLines().get(i).getExtremumIndex());
+        }
+
+        setGraphMathValues();
 
-        this.linesInTransition = new HashMap<>(graph.linesCount());
+        shownTopExtremum = currentTopExtremum();
+        shownLowExtremum = currentLowExtremum();
 
-        this.extremums = new TreeMap<>((x, y) -> Utils.compareLong(y, x));
+        final AnimationEngine engine = AnimationEngine.getInstance();
 
-        this.tempShowedPath = new Path[graph.linesCount()];
+        for (int i = 0; i < graph.linesCount(); i++) {
+            lineAlphas[i] = engine.newSlot(255.0f, LINES_ANIMATION_DURATION, linesAnimationListener);
+        }
 
-        setExtremums();
+        shownFractionSlot = engine.newSlot(1.0f, LINES_ANIMATION_DURATION, linesAnimationListener);
     }
 
     @Override
@@ -118,18 +170,26 @@ class GraphController implements View.OnTouchListener {
         final boolean isHandled = selectedWindow.onTouch(event);
 
         if (isHandled) {
-            sendSelectedWindow();
+            scheduleSelectedWindow();
         }
 
         return isHandled;
     }
 
+    /**
+     * Send selected window at the next frame. Multiple touch events of the frame are coalesced
+     */
+    private void scheduleSelectedWindow() {
+        if (!isSelectionScheduled) {
+            isSelectionScheduled = true;
+            Choreographer.getInstance().postFrameCallback(sendSelectionCallback);
+        }
+    }
+
     void attachView(@NonNull View view) {
         this.view = view;
         view.setOnTouchListener(this);
 
-        view.setLayerType(View.LAYER_TYPE_SOFTWARE, null);
-
         if (view.getWidth() > 0.0f && view.getHeight() > 0.0f) {
             onGraphViewSizeChanged(view.getWidth(), view.getHeight(), view.getPaddingLeft(), view.getPaddingRight());
         }
@@ -138,6 +198,17 @@ class GraphController implements View.OnTouchListener {
     void detachView() {
         this.view.setOnTouchListener(null);
         this.view = null;
+
+        if (isSelectionScheduled) {
+            Choreographer.getInstance().removeFrameCallback(sendSelectionCallback);
+            isSelectionScheduled = false;
+        }
+
+        if (linesBitmap != null) {
+            linesBitmap.recycle();
+            linesBitmap = null;
+            linesCanvas = null;
+        }
     }
 
     void onGraphViewSizeChanged(float newWidth, float newHeight, float paddingLeft, float paddingRight) {
@@ -156,35 +227,11 @@ class GraphController implements View.OnTouchListener {
 
             //add offset to up and bottom to not draw lines behind selected window
             expectedLinesBounds.inset(0, Math.round(selectedWindow.tbBorderHeigth + lineWidth * 0.5f));
-            currentLinesBounds.set(expectedLinesBounds);
 
             xMath.setSize(expectedLinesBounds.left, expectedLinesBounds.right);
             yMath.setSize(expectedLinesBounds.top, expectedLinesBounds.bottom);
 
-            //step between x columns
-            final float xPixelPerPoint = xMath.pixelPerPoint();
-
-            for (GraphLine line : graph.getLines()) {
-
-                final Path linePath = new Path();
-
-                for (int i = 0; i < line.getData().size(); i++) {
-                    final float xPos = xPixelPerPoint * i + expectedLinesBounds.left;
-                    final float yPos = yMath.valueToPixel(line.getData().get(i));
-
-                    if (linePath.isEmpty()) {
-                        linePath.moveTo(xPos, yPos);
-                    } else {
-                        linePath.lineTo(xPos, yPos);
-                    }
-                }
-
-                lines.put(line.getLabel(), new GraphLinePath(linePath,
-                        line.getLabel(),
-                        line.getTopExtremum(),
-                        line.getLowExtremum(),
-                        line.getColor()));
-            }
+            buildLines();
 
             sendSelectedWindow();
 
@@ -193,301 +240,275 @@ class GraphController implements View.OnTouchListener {
     }
 
     /**
-     * Hide graph's line with provided label
-     *
-     * @param lineLabel line's label to hide
+     * Build lines geometry for the current size and y axis values
      */
-    void hideLine(@NonNull String lineLabel) {
-        final GraphLinePath line = lines.get(lineLabel);
-
-        if (line != null) {
-            if (line.isInvisible()) {
-                return;
+    private void buildLines() {
+        final long start = GraphMetrics.begin(GraphMetrics.LINES_BUILD);
+
+        //no need to draw more points than pixels
+        final boolean isDecimated = MinMaxDecimator.isNeeded(graph.size(), xMath.length());
+        //a column per pixel of the view
+        final double columnWidth = xMath.pixelsToValues(1.0f);
+
+        for (int id = 0; id < graph.linesCount(); id++) {
+            final GraphLine line = graph.getLine(id);
+            final GraphLinePath oldLine = lines[id];
+
+            //reuse buffers of the previous geometry
+            final LineShape linePath = oldLine != null && oldLine.getShape().getRenderer() == lineRenderer ?
+                    oldLine.getShape() :
+                    lineRenderer.newShape();
+
+            if (isDecimated) {
+                lineDecimators[id].build(linePath,
+                        0,
+                        graph.size(),
+                        columnWidth,
+                        graph.getXAxis().getData(),
+                        xMath,
+                        yMath);
+            } else {
+                LinePathBuilder.build(linePath,
+                        line.getExtremumIndex(),
+                        0,
+                        graph.size(),
+                        graph.getXAxis().getData(),
+                        xMath,
+                        yMath);
             }
 
-            changeLineVisibility(line, false);
+            final GraphLinePath newLine = new GraphLinePath(linePath,
+                    line.getLabel(),
+                    line.getTopExtremum(),
+                    line.getLowExtremum(),
+                    line.getColor());
+
+            newLine.setColorAlpha(Math.round(lineAlphas[id].get()));
+            newLine.setEnabled(extremums.isVisible(id));
+
+            lines[id] = newLine;
         }
+
+        isLinesBuilt = true;
+
+        updateLineMatrix();
+
+        GraphMetrics.end(GraphMetrics.LINES_BUILD, start);
     }
 
     /**
-     * Show graph's line with provided label
-     *
-     * @param lineLabel line's label to show
+     * Update transformation of the lines geometry to the shown y values
      */
-    void showLine(@NonNull String lineLabel) {
-        final GraphLinePath line = lines.get(lineLabel);
-
-        if (line != null) {
-            if (line.isVisible()) {
-                return;
-            }
+    private void updateLineMatrix() {
+        yMath.setValuesTransform(lineMatrix, shownTopExtremum, shownLowExtremum);
 
-            changeLineVisibility(line, true);
-        }
+        isLinesBitmapDirty = true;
     }
 
-    void drawLines(Canvas canvas) {
-        if (graphBounds.width() == 0.0f || graphBounds.height() == 0.0f) {
+    /**
+     * Change the way lines are stored and drawn
+     *
+     * @param lineRenderer renderer to use
+     */
+    void setLineRenderer(@NonNull LineRenderer lineRenderer) {
+        if (this.lineRenderer == lineRenderer) {
             return;
         }
 
-        if (lines.size() > 0) {
-            canvas.save();
-
-            canvas.drawRect(graphBounds, notSelectedPaint);
-
-            selectedWindow.draw(canvas);
-
-            canvas.scale(1, -1, expectedLinesBounds.centerX(), expectedLinesBounds.centerY());
+        this.lineRenderer = lineRenderer;
 
-            for (GraphLine graphLine : graph.getLines()) {
-                final GraphLinePath line = lines.get(graphLine.getLabel());
-
-                linePaint.setColor(line.getColor());
-                linePaint.setAlpha(Math.max(0, line.getColorAlpha()));
-
-                canvas.drawPath(line.getPath(), linePaint);
-            }
-
-            canvas.restore();
+        if (view != null && isLinesBuilt) {
+            buildLines();
+            sendSelectedWindow();
 
-            touch.draw(canvas);
+            view.invalidate();
         }
     }
 
-    private static long[] getLineSubData(GraphObject graphObject, int start) {
-        return getLineSubData(graphObject, start, graphObject.getData().size());
-    }
-
-    private static long[] getLineSubData(GraphObject graphObject, int start, int end) {
-        final long[] subData = new long[end - start];
-
-        for (int i = 0; i < subData.length; i++) {
-            subData[i] = graphObject.getData().get(i + start);
+    /**
+     * Hide graph's line with provided id
+     *
+     * @param lineId id of the line to hide. See {@link Graph#getLineId(String)}
+     */
+    void hideLine(int lineId) {
+        if (extremums.setVisible(lineId, false)) {
+            onLinesVisibilityChanged();
         }
-
-        return subData;
-    }
-
-    private void setGraphMathValues() {
-        final long xTop = graph.getXAxis().getTopExtremum();
-        final long xLow = graph.getXAxis().getLowExtremum();
-
-        xMath.setValues(xTop, xLow, graph.size());
-        yMath.setValues(currentTopExtremum(), currentLowExtremum(), graph.size());
     }
 
     /**
-     * Return cached instance of showed via callback Path. Create it if needed
+     * Show graph's line with provided id
      *
-     * @param pos position in the array
-     * @return cached empty Path
+     * @param lineId id of the line to show. See {@link Graph#getLineId(String)}
      */
-    private Path getShowedTempPath(int pos) {
-        Path resultPath = tempShowedPath[pos];
-
-        if (resultPath == null) {
-            resultPath = new Path();
-            tempShowedPath[pos] = resultPath;
-        } else {
-            resultPath.reset();
+    void showLine(int lineId) {
+        if (extremums.setVisible(lineId, true)) {
+            onLinesVisibilityChanged();
         }
-
-        return resultPath;
     }
 
     /**
-     * Calculate and animate line transition
+     * Change visibility of several lines as one transition.
+     * Values are recalculated and the animation is started once for all changed lines
      *
-     * @param line line to show/hide
-     * @param show is it show or hide transition
+     * @param visible new visibility indexed by the line id
      */
-    private void changeLineVisibility(@NonNull GraphLinePath line, boolean show) {
-        final long topExtremum = currentTopExtremum();
-        final long lowExtremum = currentLowExtremum();
-
-        if (show) {
-            addExtremum(line);
-        } else {
-            removeExtremum(line);
-        }
-
-        final long newTopExtremum = currentTopExtremum();
-        final long newLowExtremum = currentLowExtremum();
-
-        final boolean needToTransformLines = topExtremum != newTopExtremum || lowExtremum != newLowExtremum;
-
-        if (linesAnimator == null) {
-            linesAnimator = new ValueAnimator();
-            linesAnimatorListener = new LinesAnimationListener();
-            linesAnimator.setDuration(1000);
-            linesAnimator.addListener(linesAnimatorListener);
+    void setLinesVisibility(@NonNull boolean[] visible) {
+        if (extremums.setVisible(visible)) {
+            onLinesVisibilityChanged();
         }
+    }
 
-        if (linesAnimator.isStarted()) {
-            linesAnimator.removeAllListeners();
-            linesAnimator.removeAllUpdateListeners();
-
-            linesAnimator.cancel();
+    /**
+     * @param lineId id of the line. See {@link Graph#getLineId(String)}
+     * @return true if the line is shown or is being shown
+     */
+    boolean isLineVisible(int lineId) {
+        return extremums.isVisible(lineId);
+    }
 
-            linesAnimator.addListener(linesAnimatorListener);
+    void drawLines(Canvas canvas) {
+        if (graphBounds.width() == 0.0f || graphBounds.height() == 0.0f) {
+            return;
         }
 
+        if (isLinesBuilt) {
+            final long start = GraphMetrics.begin(GraphMetrics.MAP_DRAW);
 
-        linesInTransition.put(line.getLabel(), show ? TRANSITION_SHOW : TRANSITION_HIDE);
+            drawLinesBitmap(view.getWidth(), view.getHeight());
 
-        //+2 - animation of lines transfromation. Others - alpha animations
-        final PropertyValuesHolder[] holders =
-                new PropertyValuesHolder[linesInTransition.size() + (needToTransformLines ? 2 : 0)];
+            canvas.drawBitmap(linesBitmap, 0.0f, 0.0f, null);
 
-        fillLineInTransitionHolders(holders);
+            //dim not selected parts
+            canvas.drawRect(graphBounds.left, graphBounds.top, selectedWindow.bounds.left, graphBounds.bottom, notSelectedPaint);
+            canvas.drawRect(selectedWindow.bounds.right, graphBounds.top, graphBounds.right, graphBounds.bottom, notSelectedPaint);
 
-        if (needToTransformLines) {
-            final float topChange = (lowExtremum - newLowExtremum) * yMath.currentPixelPerValue();
-            holders[holders.length - 2] =
-                    PropertyValuesHolder.ofFloat(HOLDER_TOP,
-                            currentLinesBounds.top, currentLinesBounds.top + topChange);
+            selectedWindow.draw(canvas);
 
-            final float bottomChange = (topExtremum - newTopExtremum) * yMath.currentPixelPerValue();
-            holders[holders.length - 1] =
-                    PropertyValuesHolder.ofFloat(HOLDER_BOTTOM,
-                            currentLinesBounds.bottom, currentLinesBounds.bottom + bottomChange);
+            touch.draw(canvas);
 
-            //extra listener which prepare current line to future transformations
-            linesAnimator.addListener(new LinesAnimationPrepareListener(line, topChange, bottomChange));
+            GraphMetrics.end(GraphMetrics.MAP_DRAW, start);
         }
-
-        linesAnimator.setValues(holders);
-        linesAnimator.setCurrentPlayTime(0);
-        linesAnimator.addUpdateListener(new LinesAnimationUpdateListener(needToTransformLines));
-        linesAnimator.start();
     }
 
-    private class LinesAnimationListener extends AnimatorListenerAdapter {
-        @Override
-        public void onAnimationStart(Animator animation) {
-            view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
-        }
-
-        @Override
-        public void onAnimationEnd(Animator animation) {
-            ((ValueAnimator) animation).removeAllUpdateListeners();
-
-            //reset bounds
-            currentLinesBounds.set(expectedLinesBounds);
+    /**
+     * Draw lines to the bitmap if they were changed
+     *
+     * @param width  bitmap width
+     * @param height bitmap height
+     */
+    private void drawLinesBitmap(int width, int height) {
+        if (linesBitmap == null || linesBitmap.getWidth() != width || linesBitmap.getHeight() != height) {
+            if (linesBitmap != null) {
+                linesBitmap.recycle();
+            }
 
-            linesInTransition.clear();
+            linesBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            linesCanvas = new Canvas(linesBitmap);
+            isLinesBitmapDirty = true;
+        }
 
-            view.setLayerType(View.LAYER_TYPE_SOFTWARE, null);
+        if (!isLinesBitmapDirty) {
+            return;
         }
-    }
 
-    private class LinesAnimationPrepareListener extends AnimatorListenerAdapter {
-        private final GraphLinePath line;
-        private final float topBoundsChange;
-        private final float bottomBoundsChange;
+        linesBitmap.eraseColor(Color.TRANSPARENT);
 
-        public LinesAnimationPrepareListener(GraphLinePath line,
-                                             float topBoundsChange,
-                                             float bottomBoundsChange) {
-            this.line = line;
-            this.topBoundsChange = topBoundsChange;
-            this.bottomBoundsChange = bottomBoundsChange;
-        }
+        linesCanvas.save();
 
-        @Override
-        public void onAnimationStart(Animator animation) {
-            //put line on the correct position before animation
+        linesCanvas.scale(1, -1, expectedLinesBounds.centerX(), expectedLinesBounds.centerY());
+
+        for (GraphLinePath line : lines) {
             if (line.isInvisible()) {
-                applyLineTransformation();
+                continue;
             }
-        }
 
-        @Override
-        public void onAnimationEnd(Animator animation) {
-            animation.removeListener(this);
+            linePaint.setColor(line.getColor());
+            linePaint.setAlpha(Math.max(0, line.getColorAlpha()));
 
-            //apply transformation to the line after it was hidden
-            if (line.isInvisible()) {
-                applyLineTransformation();
-            }
+            line.getShape().draw(linesCanvas, linePaint, lineMatrix);
         }
 
-        private void applyLineTransformation() {
-            final RectF target = new RectF(currentLinesBounds);
+        linesCanvas.restore();
 
-            target.bottom += bottomBoundsChange;
-            target.top += topBoundsChange;
+        isLinesBitmapDirty = false;
+    }
 
-            lineMatrix.setRectToRect(currentLinesBounds, target, Matrix.ScaleToFit.FILL);
+    private void setGraphMathValues() {
+        final long xTop = graph.getXAxis().getTopExtremum();
+        final long xLow = graph.getXAxis().getLowExtremum();
 
-            line.getPath().transform(lineMatrix);
-        }
+        xMath.setValues(xTop, xLow);
+        yMath.setValues(currentTopExtremum(), currentLowExtremum());
     }
 
-    private class LinesAnimationUpdateListener implements ValueAnimator.AnimatorUpdateListener {
-        private final RectF targetRect;
-
-        LinesAnimationUpdateListener(boolean checkBounds) {
-            targetRect = checkBounds ? new RectF(currentLinesBounds) : null;
-        }
+    /**
+     * Calculate and animate transition of the lines to their current visibility
+     */
+    private void onLinesVisibilityChanged() {
+        setGraphMathValues();
 
-        @Override
-        public void onAnimationUpdate(ValueAnimator animation) {
-            for (String lineLabel : linesInTransition.keySet()) {
-                final int lineAlpha = (int) animation.getAnimatedValue(lineAlphaHolderName(lineLabel));
-                lines.get(lineLabel).setColorAlpha(lineAlpha);
-            }
+        final long newTopExtremum = currentTopExtremum();
+        final long newLowExtremum = currentLowExtremum();
 
-            if (targetRect != null) {
-                targetRect.bottom = (float) animation.getAnimatedValue(HOLDER_BOTTOM);
-                targetRect.top = (float) animation.getAnimatedValue(HOLDER_TOP);
+        //shown values can differ from the previous values if the previous animation was cancelled
+        final boolean needToTransformLines = shownTopExtremum != newTopExtremum || shownLowExtremum != newLowExtremum;
 
-                lineMatrix.setRectToRect(currentLinesBounds, targetRect, Matrix.ScaleToFit.FILL);
-                lineMatrix.mapRect(currentLinesBounds);
+        for (int id = 0; id < lineAlphas.length; id++) {
+            final boolean visible = extremums.isVisible(id);
 
-                for (GraphLinePath line : lines.values()) {
-                    if (!linesInTransition.containsKey(line.getLabel())) {
-                        line.getPath().transform(lineMatrix);
-                    }
-                }
+            if (lines[id] != null) {
+                lines[id].setEnabled(visible);
             }
 
-            view.invalidate();
+            //slots of the unchanged lines keep running to the same target
+            lineAlphas[id].animateTo(visible ? 255.0f : 0.0f);
         }
-    }
 
-    private void fillLineInTransitionHolders(PropertyValuesHolder[] holders) {
-        if (linesInTransition.isEmpty()) {
-            return;
+        if (needToTransformLines) {
+            //geometry is built once for the new values. Only the matrix is changed by the animation
+            if (view != null && isLinesBuilt) {
+                buildLines();
+            }
+
+            //running animation is retargeted from the currently shown values
+            startTopExtremum = shownTopExtremum;
+            startLowExtremum = shownLowExtremum;
+
+            shownFractionSlot.set(0.0f);
+            shownFractionSlot.animateTo(1.0f);
         }
 
-        int i = 0;
-        for (Map.Entry<String, Integer> e : linesInTransition.entrySet()) {
-            final int alpha;
+        //selected window extremums depend on the enabled lines
+        sendSelectedWindow();
+    }
 
-            switch (e.getValue()) {
-                case TRANSITION_HIDE:
-                    alpha = 0;
-                    break;
-                case TRANSITION_SHOW:
-                    alpha = 255;
-                    break;
-                default:
-                    throw new IllegalStateException("Unsupported transition " + e.getValue());
+    /**
+     * Apply animated values of the lines
+     */
+    private void onLinesAnimationFrame() {
+        for (int id = 0; id < lines.length; id++) {
+            if (lines[id] != null) {
+                lines[id].setColorAlpha(Math.round(lineAlphas[id].get()));
             }
+        }
 
-            holders[i++] = lineAlphaValueHolder(lines.get(e.getKey()), alpha);
+        //finished values are exact to not leave any error in the matrix
+        if (shownFractionSlot.isRunning()) {
+            final double fraction = shownFractionSlot.get();
+
+            shownTopExtremum = startTopExtremum + (currentTopExtremum() - startTopExtremum) * fraction;
+            shownLowExtremum = startLowExtremum + (currentLowExtremum() - startLowExtremum) * fraction;
+        } else {
+            shownTopExtremum = currentTopExtremum();
+            shownLowExtremum = currentLowExtremum();
         }
-    }
 
-    private static String lineAlphaHolderName(String lineLabel) {
-        return HOLDER_LINE_ALPHA_PREFIX + lineLabel;
-    }
+        updateLineMatrix();
 
-    private static PropertyValuesHolder lineAlphaValueHolder(GraphLinePath line, int alpha) {
-        return PropertyValuesHolder.ofInt(lineAlphaHolderName(line.getLabel()),
-                line.getColorAlpha(), alpha);
+        if (view != null) {
+            view.invalidate();
+        }
     }
 
     /**
@@ -496,192 +517,288 @@ class GraphController implements View.OnTouchListener {
      * @return the top extremum value
      */
     private long currentTopExtremum() {
-        return extremums.firstKey();
+        return extremums.getTop();
     }
 
     /**
-     * Get graph's current lowe extremum value
+     * Get graph's current low extremum value
      *
      * @return the low extremum value
      */
     private long currentLowExtremum() {
-        return extremums.lastKey();
+        return extremums.getLow();
     }
 
     /**
-     * Set all Y extremums from graph lines
+     * Request calculation of the selected window. It is sent to the callback when calculated
      */
-    private void setExtremums() {
-        extremums.clear();
+    private void sendSelectedWindow() {
+        if (callback == null) {
+            return;
+        }
+
+        final long start = GraphMetrics.begin(GraphMetrics.SELECTION_REQUEST);
 
-        for (GraphLine line : graph.getLines()) {
-            Integer topExtremumCount = extremums.get(line.getTopExtremum());
-            Integer lowExtremumCount = extremums.get(line.getLowExtremum());
+        GraphMetrics.count(GraphMetrics.SELECTIONS_REQUESTED);
 
-            extremums.put(line.getTopExtremum(), topExtremumCount == null ? 1 : ++topExtremumCount);
-            extremums.put(line.getLowExtremum(), lowExtremumCount == null ? 1 : ++lowExtremumCount);
+        //running calculation becomes stale and will be dropped
+        selectionGeneration++;
+
+        if (!isWindowCalculating) {
+            startWindowCalculation();
         }
 
-        setGraphMathValues();
+        GraphMetrics.end(GraphMetrics.SELECTION_REQUEST, start);
     }
 
     /**
-     * Add line's extremums to the tree
-     *
-     * @param line line to use
+     * Calculate the latest selected window on the worker thread
      */
-    private void addExtremum(GraphLinePath line) {
-        Integer topCount = extremums.get(line.getTopExtremum());
-        Integer lowCount = extremums.get(line.getLowExtremum());
+    private void startWindowCalculation() {
+        final WindowBuffer buffer = windowBuffers[calculatedBuffer];
+
+        //snapshot of the current state. It can be changed while the window is calculated
+        buffer.generation = selectionGeneration;
+        buffer.startSelectionPos = selectedWindow.bounds.left;
+        buffer.endSelectionPos = selectedWindow.bounds.right;
+        buffer.selectionWidth = callback.getSelectionWidth() > 0.0f ? callback.getSelectionWidth() : graphBounds.width();
+        buffer.xMath.set(xMath);
+        buffer.yMath.set(yMath);
+        buffer.lineRenderer = lineRenderer;
+
+        for (int i = 0; i < graph.linesCount(); i++) {
+            buffer.enabled[i] = extremums.isVisible(i);
+        }
 
-        extremums.put(line.getTopExtremum(), topCount == null ? 1 : ++topCount);
-        extremums.put(line.getLowExtremum(), lowCount == null ? 1 : ++lowCount);
+        isWindowCalculating = true;
 
-        setGraphMathValues();
+        windowExecutor.execute(buffer.calculationTask);
     }
 
-    /**
-     * Remove line's extremums from the tree
-     *
-     * @param line line to use
-     */
-    private void removeExtremum(GraphLinePath line) {
-        Integer topCount = extremums.get(line.getTopExtremum());
-        Integer lowCount = extremums.get(line.getLowExtremum());
+    private void onWindowCalculated(@NonNull WindowBuffer buffer) {
+        isWindowCalculating = false;
 
-        if (topCount == 1) {
-            extremums.remove(line.getTopExtremum());
-        } else {
-            extremums.put(line.getTopExtremum(), --topCount);
+        if (view == null || callback == null) {
+            return;
         }
 
-        if (lowCount == 1) {
-            extremums.remove(line.getLowExtremum());
+        if (buffer.isCalculated && buffer.generation == selectionGeneration) {
+            //calculated buffer is shown now. The other one is free for the next calculation
+            calculatedBuffer ^= 1;
+
+            GraphMetrics.count(GraphMetrics.SELECTIONS_DELIVERED);
+
+            callback.onSelectionChanged(buffer.window);
         } else {
-            extremums.put(line.getLowExtremum(), --lowCount);
-        }
+            GraphMetrics.count(GraphMetrics.SELECTIONS_DROPPED);
 
-        setGraphMathValues();
+            //newer window was requested while calculating
+            startWindowCalculation();
+        }
     }
 
     /**
-     * Send selected windows' lines to the callback
+     * Calculate selected window using the buffer state. Called on the worker thread
+     *
+     * @param buffer state snapshot and buffers to fill
+     * @return true if the buffer window was calculated or false if a newer window was requested
      */
-    private void sendSelectedWindow() {
-        if (callback != null) {
-            final GraphLinePath[] newPaths = new GraphLinePath[graph.linesCount()];
-            final long[] xResultPathsValues;
-            final long[][] yResultPathsValues = new long[graph.linesCount()][];
-
-            //pixels
-            final float startSelectionPos = selectedWindow.bounds.left;
-            final float endSelectionPos = selectedWindow.bounds.right;
-
-            final boolean isFromStartSelection = startSelectionPos == graphBounds.left;
-            final boolean isToEndSelection = endSelectionPos == graphBounds.right;
-
-            final boolean isWholeLineSelected = isFromStartSelection && isToEndSelection;
-
-            final PathMeasure pathMeasure = new PathMeasure();
-
-            long selectedTopExtremum = isWholeLineSelected ? currentTopExtremum() : Long.MIN_VALUE;
-            long selectedLowExtremum = isWholeLineSelected ? currentLowExtremum() : Long.MAX_VALUE;
+    @WorkerThread
+    private boolean calculateSelectedWindow(@NonNull WindowBuffer buffer) {
+        final AxisMath xMath = buffer.xMath;
+        final AxisMath yMath = buffer.yMath;
+
+        //extremums of the enabled lines and of all lines if every line is disabled
+        long selectedTopExtremum = Long.MIN_VALUE;
+        long selectedLowExtremum = Long.MAX_VALUE;
+        long allTopExtremum = Long.MIN_VALUE;
+        long allLowExtremum = Long.MAX_VALUE;
+
+        final GraphAxis xAxis = graph.getXAxis();
+
+        //selected x values
+        final long selectedXStart = xMath.pixelToValue(buffer.startSelectionPos);
+        final long selectedXEnd = xMath.pixelToValue(buffer.endSelectionPos);
+
+        //selected points [start, end) cover the selection, so lines reach the window edges
+        final int selectedValuesStart = xAxis.floorIndex(selectedXStart);
+        final int selectedValuesEnd = Math.max(xAxis.ceilIndex(selectedXEnd) + 1, selectedValuesStart + 1);
+
+        //windows with more points than pixels of the view are decimated
+        final boolean isDecimated = MinMaxDecimator.isNeeded(selectedValuesEnd - selectedValuesStart, buffer.selectionWidth);
+        //a column per pixel of the view. Selection size is kept while it is moved, so cached columns stay valid
+        final double columnWidth = xMath.pixelsToValues((buffer.endSelectionPos - buffer.startSelectionPos) / buffer.selectionWidth);
+
+        //views of the selected values. Values are not copied
+        buffer.xValues.set(xAxis.getData(), selectedValuesStart, selectedValuesEnd - selectedValuesStart);
+
+        for (int i = 0; i < graph.linesCount(); i++) {
+            if (buffer.generation != selectionGeneration) {
+                //stale
+                return false;
+            }
 
-            float[] distancePos = null;
+            final GraphLine graphLine = graph.getLines().get(i);
 
-            //calculate start and end selected positions of asix values
+            final RangeExtremumIndex extremumIndex = graphLine.getExtremumIndex();
+            final long lineTopExtremum = extremumIndex.getMax(selectedValuesStart, selectedValuesEnd);
+            final long lineLowExtremum = extremumIndex.getMin(selectedValuesStart, selectedValuesEnd);
 
-            final int selectedValuesStart = xMath.pixelToRoundPointPosition(startSelectionPos);
-            final int selectedValuesEnd = xMath.pixelToRoundPointPosition(endSelectionPos);
+            if (buffer.enabled[i]) {
+                selectedTopExtremum = Math.max(selectedTopExtremum, lineTopExtremum);
+                selectedLowExtremum = Math.min(selectedLowExtremum, lineLowExtremum);
+            }
 
-            //slice selected X axis values
-            if (isWholeLineSelected) {
-                xResultPathsValues = getLineSubData(graph.getXAxis(), 0);
+            allTopExtremum = Math.max(allTopExtremum, lineTopExtremum);
+            allLowExtremum = Math.min(allLowExtremum, lineLowExtremum);
+
+            final GraphLinePath graphLinePath = buffer.path(i, graphLine);
+            final LineShape selectedPartPath = graphLinePath.getShape();
+
+            //build window geometry from the selected points only
+            if (isDecimated) {
+                decimators[i].build(selectedPartPath,
+                        selectedValuesStart,
+                        selectedValuesEnd,
+                        columnWidth,
+                        xAxis.getData(),
+                        xMath,
+                        yMath);
             } else {
-                xResultPathsValues = getLineSubData(graph.getXAxis(), selectedValuesStart, selectedValuesEnd);
+                LinePathBuilder.build(selectedPartPath,
+                        extremumIndex,
+                        selectedValuesStart,
+                        selectedValuesEnd,
+                        xAxis.getData(),
+                        xMath,
+                        yMath);
             }
 
-            for (int i = 0; i < graph.linesCount(); i++) {
-                final GraphLine graphLine = graph.getLines().get(i);
-                final GraphLinePath graphLinePath = lines.get(graphLine.getLabel());
-
-                pathMeasure.setPath(graphLinePath.getPath(), false);
-
-                final Path selectedPartPath = getShowedTempPath(i);
-
-                if (isWholeLineSelected) {
-                    //no need to calculate
-                    selectedPartPath.set(graphLinePath.getPath());
-                    yResultPathsValues[i] = getLineSubData(graphLine, 0);
-                } else {
-                    //current line length
-                    final float currentPathLen = pathMeasure.getLength();
-                    //current path distance ratio
-                    final float ratio = currentPathLen / graphBounds.width();
+            buffer.yValues[i].set(graphLine.getData(), selectedValuesStart, selectedValuesEnd - selectedValuesStart);
 
-                    if (distancePos == null) {
-                        distancePos = new float[2];
-                    }
+            graphLinePath.setEnabled(buffer.enabled[i]);
+        }
 
-                    //calculated path distances
-                    float startDistance = isFromStartSelection ? 0 : Float.MIN_VALUE;
-                    float endDistance = isToEndSelection ? currentPathLen : Float.MIN_VALUE;
+        if (selectedTopExtremum == Long.MIN_VALUE) {
+            //all lines are disabled. Keep the range of the all lines
+            selectedTopExtremum = allTopExtremum;
+            selectedLowExtremum = allLowExtremum;
+        }
 
-                    for (float distance = 0; distance < currentPathLen; distance += ratio) {
-                        if (startDistance == Float.MIN_VALUE) {
-                            pathMeasure.getPosTan(distance, distancePos, null);
+        buffer.window.set(buffer.startSelectionPos,
+                yMath.valueToPixel(selectedLowExtremum),
+                buffer.endSelectionPos,
+                yMath.valueToPixel(selectedTopExtremum),
+                selectedXEnd,
+                selectedXStart,
+                selectedTopExtremum,
+                selectedLowExtremum);
 
-                            final float distanceXPos = distancePos[0];
+        return true;
+    }
 
-                            if (distanceXPos >= startSelectionPos) {
-                                startDistance = distance;
-                            }
-                        }
-                        if (endDistance == Float.MIN_VALUE) {
-                            pathMeasure.getPosTan(currentPathLen - distance, distancePos, null);
+    /**
+     * State of a selected window calculation and its reusable result.
+     * Windows are double buffered: window of one buffer is shown while the other one is calculated
+     */
+    private final class WindowBuffer {
+        private int generation;
+
+        //pixels
+        private float startSelectionPos;
+        private float endSelectionPos;
+        private float selectionWidth;
+
+        private final AxisMath xMath = new AxisMath();
+        private final AxisMath yMath = new AxisMath();
+
+        @NonNull
+        private final boolean[] enabled;
+        @NonNull
+        private final LineShape[] shapes;
+        private LineRenderer lineRenderer;
+
+        @NonNull
+        private final ColumnView xValues = new ColumnView();
+        @NonNull
+        private final ColumnView[] yValues;
+        @NonNull
+        private final GraphLinePath[] paths;
+        @NonNull
+        private final SelectedGraphWindow window;
+
+        //result of the last calculation
+        private volatile boolean isCalculated;
+
+        //tasks are reused to not allocate on each selection change
+        @NonNull
+        private final Runnable calculationTask;
+        @NonNull
+        private final Runnable deliveryTask;
+
+        WindowBuffer(int linesCount) {
+            enabled = new boolean[linesCount];
+            shapes = new LineShape[linesCount];
+            yValues = new ColumnView[linesCount];
+            paths = new GraphLinePath[linesCount];
+
+            for (int i = 0; i < linesCount; i++) {
+                yValues[i] = new ColumnView();
+            }
 
-                            final float distanceXPos = distancePos[0];
+            window = new SelectedGraphWindow(paths, xValues, yValues);
 
-                            if (distanceXPos <= endSelectionPos) {
-                                endDistance = currentPathLen - distance;
-                            }
-                        }
+            deliveryTask = () -> onWindowCalculated(this);
+            calculationTask = () -> {
+                final long start = GraphMetrics.begin(GraphMetrics.SELECTION_CALCULATION);
 
-                        if (startDistance != Float.MIN_VALUE && endDistance != Float.MIN_VALUE) {
-                            break;
-                        }
-                    }
+                isCalculated = calculateSelectedWindow(this);
 
-                    //extract the path segment using calculated distances
-                    pathMeasure.getSegment(startDistance, endDistance, selectedPartPath, true);
-                    //hack from getSegment documentation
-                    selectedPartPath.rLineTo(0, 0);
+                GraphMetrics.end(GraphMetrics.SELECTION_CALCULATION, start);
 
-                    selectedPartPath.computeBounds(lineBoundsTemp, false);
+                mainHandler.post(deliveryTask);
+            };
+        }
 
-                    //switch top and bottom because y reversed
-                    selectedTopExtremum = Math.max(selectedTopExtremum, yMath.pixelToValue(lineBoundsTemp.bottom));
-                    selectedLowExtremum = Math.min(selectedLowExtremum, yMath.pixelToValue(lineBoundsTemp.top));
+        /**
+         * @param pos       line position
+         * @param graphLine line of the graph at the position
+         * @return line of the buffer with an empty shape
+         */
+        @NonNull
+        private GraphLinePath path(int pos, @NonNull GraphLine graphLine) {
+            final LineShape shape = shape(pos);
 
-                    yResultPathsValues[i] = getLineSubData(graphLine, selectedValuesStart, selectedValuesEnd);
-                }
+            GraphLinePath path = paths[pos];
 
-                newPaths[i] = new GraphLinePath(selectedPartPath,
+            if (path == null || path.getShape() != shape) {
+                path = new GraphLinePath(shape,
                         graphLine.getLabel(),
                         graphLine.getTopExtremum(),
                         graphLine.getLowExtremum(),
                         graphLine.getColor());
+                paths[pos] = path;
             }
 
-            callback.onSelectionChanged(new SelectedGraphWindow(newPaths,
-                    new RectF(startSelectionPos,
-                            yMath.valueToPixel(selectedLowExtremum),
-                            endSelectionPos,
-                            yMath.valueToPixel(selectedTopExtremum)),
-                    xResultPathsValues,
-                    yResultPathsValues,
-                    selectedTopExtremum,
-                    selectedLowExtremum));
+            return path;
+        }
+
+        /**
+         * @param pos line position
+         * @return empty line of the buffer
+         */
+        @NonNull
+        private LineShape shape(int pos) {
+            LineShape shape = shapes[pos];
+
+            if (shape == null || shape.getRenderer() != lineRenderer) {
+                shape = lineRenderer.newShape();
+                shapes[pos] = shape;
+            } else {
+                shape.reset();
+            }
+
+            return shape;
         }
     }
 
@@ -692,14 +809,20 @@ class GraphController implements View.OnTouchListener {
          * @param selectedWindow describes selected window
          */
         void onSelectionChanged(SelectedGraphWindow selectedWindow);
+
+        /**
+         * Used to choose pixel columns of the selected window lines
+         *
+         * @return width of the selected window view in pixels or 0 if it is unknown yet
+         */
+        float getSelectionWidth();
     }
 
-    private class Touch implements ValueAnimator.AnimatorUpdateListener {
+    private class Touch implements AnimationEngine.Listener {
         private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        private final ValueAnimator scaleAnimator = scaleAnimator();
+        private final AnimationEngine.Slot scale = AnimationEngine.getInstance().newSlot(0.0f, 200, this);
 
         private float cx;
-        private float currentScale;
 
         public Touch(@ColorInt int color) {
             paint.setStyle(Paint.Style.FILL);
@@ -707,16 +830,16 @@ class GraphController implements View.OnTouchListener {
         }
 
         @Override
-        public void onAnimationUpdate(ValueAnimator animation) {
-            currentScale = (float) animation.getAnimatedValue();
-
-            view.invalidate();
+        public void onAnimationFrame() {
+            if (view != null) {
+                view.invalidate();
+            }
         }
 
         private void show(float cx) {
             this.cx = cx;
 
-            scaleAnimator.start();
+            scale.animateTo(1.0f);
         }
 
         private void move(float cx) {
@@ -726,24 +849,17 @@ class GraphController implements View.OnTouchListener {
         }
 
         private void hide() {
-            scaleAnimator.reverse();
+            scale.animateTo(0.0f);
         }
 
         private void draw(Canvas canvas) {
-            if (currentScale == 0.0f) {
+            if (scale.get() == 0.0f) {
                 return;
             }
 
             final float radius = view.getHeight() * 0.5f;
 
-            canvas.drawCircle(cx, radius, radius * currentScale, paint);
-        }
-
-        private ValueAnimator scaleAnimator() {
-            final ValueAnimator animator = ValueAnimator.ofFloat(0.0f, 1.0f);
-            animator.setDuration(200);
-            animator.addUpdateListener(this);
-            return animator;
+            canvas.drawCircle(cx, radius, radius * scale.get(), paint);
         }
     }
 
@@ -765,7 +881,6 @@ class GraphController implements View.OnTouchListener {
 
         @ColorInt
         private final int frameColor;
-        private final Xfermode clearMode = new PorterDuffXfermode(PorterDuff.Mode.CLEAR);
 
         private float minSelectedWidth;
 
@@ -909,58 +1024,74 @@ class GraphController implements View.OnTouchListener {
                     touch.hide();
                     return true;
                 case MotionEvent.ACTION_MOVE: {
-                    final float x = event.getX();
-
-                    final float offset = x - prevTouchX;
+                    boolean isMoved = false;
 
-                    if (Math.abs(offset) < 5.0f) {
-                        return false;
-                    }
-
-                    switch (motionMode) {
-                        case MOTION_MODE_MOVE:
-                            if (!move(offset)) {
-                                return false;
-                            }
-                            break;
-                        case MOTION_MODE_LEFT:
-                            if (!scaleLeft(offset)) {
-                                return false;
-                            }
-                            break;
-                        case MOTION_MODE_RIGHT:
-                            if (!scaleRight(offset)) {
-                                return false;
-                            }
-                            break;
-                        default:
-                            throw new IllegalArgumentException(String.format("Unsupported motion mode '{%1$d}'", motionMode));
+                    //fast moves are batched. Apply every sample to not lose them at the graph edges
+                    for (int i = 0; i < event.getHistorySize(); i++) {
+                        isMoved |= moveTo(event.getHistoricalX(i));
                     }
 
-                    touch.move(x);
+                    isMoved |= moveTo(event.getX());
 
-                    prevTouchX = x;
+                    if (isMoved) {
+                        touch.move(event.getX());
+                    }
 
-                    return true;
+                    return isMoved;
                 }
                 default:
                     return false;
             }
         }
 
+        /**
+         * Apply touch move to the window
+         *
+         * @param x new touch position
+         * @return true if the window was changed
+         */
+        private boolean moveTo(float x) {
+            final float offset = x - prevTouchX;
+
+            if (offset == 0.0f) {
+                return false;
+            }
+
+            switch (motionMode) {
+                case MOTION_MODE_MOVE:
+                    if (!move(offset)) {
+                        return false;
+                    }
+                    break;
+                case MOTION_MODE_LEFT:
+                    if (!scaleLeft(offset)) {
+                        return false;
+                    }
+                    break;
+                case MOTION_MODE_RIGHT:
+                    if (!scaleRight(offset)) {
+                        return false;
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException(String.format("Unsupported motion mode '{%1$d}'", motionMode));
+            }
+
+            prevTouchX = x;
+
+            return true;
+        }
+
         private void draw(Canvas canvas) {
             paint.setColor(frameColor);
-            paint.setXfermode(clearMode);
-            canvas.drawRect(bounds, paint);
 
-            paint.setXfermode(null);
-            canvas.drawRect(bounds, paint);
+            //left and right borders
+            canvas.drawRect(bounds.left, bounds.top, bounds.left + lrBorderWidth, bounds.bottom, paint);
+            canvas.drawRect(bounds.right - lrBorderWidth, bounds.top, bounds.right, bounds.bottom, paint);
 
-            paint.setColor(Color.TRANSPARENT);
-            paint.setXfermode(clearMode);
-            bounds.inset(lrBorderWidth, tbBorderHeigth);
-            canvas.drawRect(bounds, paint);
-            bounds.inset(-lrBorderWidth, -tbBorderHeigth);
+            //top and bottom borders between left and right ones
+            canvas.drawRect(bounds.left + lrBorderWidth, bounds.top, bounds.right - lrBorderWidth, bounds.top + tbBorderHeigth, paint);
+            canvas.drawRect(bounds.left + lrBorderWidth, bounds.bottom - tbBorderHeigth, bounds.right - lrBorderWidth, bounds.bottom, paint);
         }
     }
 }
@@ -0,0 +1,76 @@
+package com.almadevelop.telegram.chart.visualizer;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.text.TextPaint;
+
+import com.almadevelop.telegram.chart.R;
+import com.almadevelop.telegram.chart.Utils;
+
+/**
+ * Values of {@link GraphMetrics} drawn on the graph canvas.
+ * Texts are refreshed from a metrics snapshot not more often than {@link #REFRESH_INTERVAL}
+ */
+final class GraphDebugHud {
+    //ms
+    private static final long REFRESH_INTERVAL = 500L;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final TextPaint textPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final float lineHeight;
+    private final float baseline;
+
+    @NonNull
+    private final String[] lines = new String[]{"", "", ""};
+    private long refreshTime = Long.MIN_VALUE;
+
+    GraphDebugHud(@NonNull Context context) {
+        textPaint.setColor(Utils.getColor(context, R.color.tooltip_text));
+        textPaint.setTextSize(context.getResources().getDimension(R.dimen.tooltip_label_size));
+
+        final Paint.FontMetrics fm = textPaint.getFontMetrics();
+        lineHeight = fm.descent - fm.ascent;
+        baseline = -fm.ascent;
+    }
+
+    /**
+     * @param canvas canvas to draw at
+     * @param left   left position of the texts
+     * @param top    top position of the texts
+     */
+    void draw(@NonNull Canvas canvas, float left, float top) {
+        final long now = SystemClock.uptimeMillis();
+
+        if (now - refreshTime >= REFRESH_INTERVAL) {
+            refreshTime = now;
+            refresh();
+        }
+
+        for (int i = 0; i < lines.length; i++) {
+            canvas.drawText(lines[i], left, top + lineHeight * i + baseline, textPaint);
+        }
+    }
+
+    private void refresh() {
+        final GraphMetrics.Snapshot snapshot = GraphMetrics.snapshot();
+        final GraphMetrics.Stats frame = snapshot.getStats(GraphMetrics.FRAME_DRAW);
+        final GraphMetrics.Stats selection = snapshot.getStats(GraphMetrics.SELECTION_CALCULATION);
+        final GraphMetrics.Stats points = snapshot.getStats(GraphMetrics.POINTS_PER_FRAME);
+
+        lines[0] = "draw p50/p95/p99 " + millis(frame.getP50()) + "/" + millis(frame.getP95()) + "/" + millis(frame.getP99()) + " ms";
+        lines[1] = "selection p50/p95 " + millis(selection.getP50()) + "/" + millis(selection.getP95()) + " ms, dropped " +
+                snapshot.getCounter(GraphMetrics.SELECTIONS_DROPPED) + "/" + snapshot.getCounter(GraphMetrics.SELECTIONS_REQUESTED);
+        lines[2] = "points/frame " + points.getMean() + ", max " + points.getMax();
+    }
+
+    /**
+     * @return nanos as millis with 0.01 precision
+     */
+    @NonNull
+    private static String millis(long nanos) {
+        return String.valueOf(Math.round(nanos / NANOS_PER_MILLI * 100.0) / 100.0);
+    }
+}
@@ -1,12 +1,11 @@
 package com.almadevelop.telegram.chart.visualizer;
 
-import android.graphics.Path;
 import android.support.annotation.ColorInt;
 import android.support.annotation.NonNull;
 
 class GraphLinePath {
     @NonNull
-    private final Path path;
+    private final LineShape shape;
 
     @NonNull
     private final String label;
@@ -18,9 +17,11 @@ class GraphLinePath {
     private final int color;
 
     private int colorAlpha = 255;
+    //target visibility of the line. Alpha can be in transition
+    private boolean enabled = true;
 
-    GraphLinePath(@NonNull Path path, @NonNull String label, long topExtremum, long lowExtremum, @ColorInt int color) {
-        this.path = path;
+    GraphLinePath(@NonNull LineShape shape, @NonNull String label, long topExtremum, long lowExtremum, @ColorInt int color) {
+        this.shape = shape;
         this.label = label;
         this.topExtremum = topExtremum;
         this.lowExtremum = lowExtremum;
@@ -35,9 +36,17 @@ class GraphLinePath {
         return colorAlpha == 0;
     }
 
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
     @NonNull
-    Path getPath() {
-        return path;
+    LineShape getShape() {
+        return shape;
     }
 
     @NonNull
@@ -89,7 +98,10 @@ class GraphLinePath {
         if (colorAlpha != that.colorAlpha) {
             return false;
         }
-        if (!path.equals(that.path)) {
+        if (enabled != that.enabled) {
+            return false;
+        }
+        if (!shape.equals(that.shape)) {
             return false;
         }
         return label.equals(that.label);
@@ -97,24 +109,26 @@ class GraphLinePath {
 
     @Override
     public int hashCode() {
-        int result = path.hashCode();
+        int result = shape.hashCode();
         result = 31 * result + label.hashCode();
         result = 31 * result + (int) (topExtremum ^ (topExtremum >>> 32));
         result = 31 * result + (int) (lowExtremum ^ (lowExtremum >>> 32));
         result = 31 * result + color;
         result = 31 * result + colorAlpha;
+        result = 31 * result + (enabled ? 1 : 0);
         return result;
     }
 
     @Override
     public String toString() {
         return "GraphLinePath{" +
-                "path=" + path +
+                "shape=" + shape +
                 ", label='" + label + '\'' +
                 ", topExtremum=" + topExtremum +
                 ", lowExtremum=" + lowExtremum +
                 ", color=" + color +
                 ", colorAlpha=" + colorAlpha +
+                ", enabled=" + enabled +
                 '}';
     }
 }
@@ -4,6 +4,7 @@ import android.annotation.TargetApi;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.os.Build;
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.util.AttributeSet;
 import android.view.View;
@@ -12,9 +13,15 @@ import android.view.ViewGroup;
 import com.almadevelop.telegram.chart.R;
 import com.almadevelop.telegram.chart.graph.Graph;
 
+import java.util.Arrays;
+import java.util.Set;
+
 public class GraphMapVisializer extends View {
     private GraphController graphManager;
     private GraphController.Callback controllerCallback;
+    private LineRenderer lineRenderer = LineRenderer.PATH;
+    //reused visibility of the lines requested by a batch change
+    private boolean[] linesVisibility;
 
     private boolean isAttached = false;
 
@@ -46,7 +53,10 @@ public class GraphMapVisializer extends View {
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
-        graphManager.onGraphViewSizeChanged(w, h, getPaddingLeft(), getPaddingRight());
+        //graph can be set after the first layout. Controller will take the size on attach
+        if (graphManager != null) {
+            graphManager.onGraphViewSizeChanged(w, h, getPaddingLeft(), getPaddingRight());
+        }
     }
 
     @Override
@@ -86,6 +96,8 @@ public class GraphMapVisializer extends View {
         final int touchColor = getResources().getColor(R.color.graph_touch);
 
         graphManager = new GraphController(graph, getResources(), lineWidth, touchPadding, unselectedColor, selectedColor, touchColor, controllerCallback);
+        graphManager.setLineRenderer(lineRenderer);
+        linesVisibility = new boolean[graph.linesCount()];
 
         if (isAttached) {
             graphManager.attachView(this);
@@ -96,13 +108,99 @@ public class GraphMapVisializer extends View {
         this.controllerCallback = controllerCallback;
     }
 
-    public void setLineEnabled(String lineLabel, boolean enabled) {
+    /**
+     * Change the way lines of the both graphs are stored and drawn
+     *
+     * @param lineRenderer renderer to use
+     */
+    public void setLineRenderer(@NonNull LineRenderer lineRenderer) {
+        if (lineRenderer == null) {
+            throw new IllegalArgumentException("Line renderer cannot be null");
+        }
+
+        this.lineRenderer = lineRenderer;
+
+        if (graphManager != null) {
+            graphManager.setLineRenderer(lineRenderer);
+        }
+    }
+
+    /**
+     * Show or hide line of the both graphs
+     *
+     * @param lineId  id of the line. See {@link Graph#getLineId(String)}
+     * @param enabled show or hide the line
+     */
+    public void setLineEnabled(int lineId, boolean enabled) {
         if (graphManager != null) {
             if (enabled) {
-                graphManager.showLine(lineLabel);
+                graphManager.showLine(lineId);
             } else {
-                graphManager.hideLine(lineLabel);
+                graphManager.hideLine(lineId);
+            }
+        }
+    }
+
+    /**
+     * Show the provided lines of the both graphs and hide all others as one transition
+     *
+     * @param lineIds ids of the lines to show. See {@link Graph#getLineId(String)}
+     */
+    public void setLinesEnabled(@NonNull Set<Integer> lineIds) {
+        if (lineIds == null) {
+            throw new IllegalArgumentException("Line ids cannot be null");
+        }
+
+        if (graphManager != null) {
+            for (int lineId = 0; lineId < linesVisibility.length; lineId++) {
+                linesVisibility[lineId] = lineIds.contains(lineId);
             }
+
+            graphManager.setLinesVisibility(linesVisibility);
+        }
+    }
+
+    /**
+     * Show all lines of the both graphs as one transition
+     */
+    public void showAllLines() {
+        setAllLinesEnabled(true);
+    }
+
+    /**
+     * Hide all lines of the both graphs as one transition
+     */
+    public void hideAllLines() {
+        setAllLinesEnabled(false);
+    }
+
+    /**
+     * Show only one line of the both graphs and hide all others as one transition
+     *
+     * @param lineId id of the line to show. See {@link Graph#getLineId(String)}
+     */
+    public void soloLine(int lineId) {
+        if (graphManager != null) {
+            Arrays.fill(linesVisibility, false);
+            linesVisibility[lineId] = true;
+
+            graphManager.setLinesVisibility(linesVisibility);
+        }
+    }
+
+    /**
+     * @param lineId id of the line. See {@link Graph#getLineId(String)}
+     * @return true if the line is enabled. Lines are enabled until the graph is set
+     */
+    public boolean isLineEnabled(int lineId) {
+        return graphManager == null || graphManager.isLineVisible(lineId);
+    }
+
+    private void setAllLinesEnabled(boolean enabled) {
+        if (graphManager != null) {
+            Arrays.fill(linesVisibility, enabled);
+
+            graphManager.setLinesVisibility(linesVisibility);
         }
     }
 
@@ -0,0 +1,427 @@
+package com.almadevelop.telegram.chart.visualizer;
+
+import android.os.Build;
+import android.os.Trace;
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Instrumentation of the graph views hot paths: {@link Trace} sections, counters and value histograms.
+ * Disabled by default. While disabled every call is a single volatile read.
+ * <p>
+ * Sections can be measured on any thread. Each section has a latency histogram (ns)
+ */
+public final class GraphMetrics {
+    //sections and their latency histograms
+    /**
+     * Draw of the graph view
+     */
+    public static final int FRAME_DRAW = 0;
+    /**
+     * Draw of the graph map view
+     */
+    public static final int MAP_DRAW = 1;
+    /**
+     * Request of the selected window on the main thread
+     */
+    public static final int SELECTION_REQUEST = 2;
+    /**
+     * Calculation of the selected window on the worker thread
+     */
+    public static final int SELECTION_CALCULATION = 3;
+    /**
+     * Build of the graph map lines geometry
+     */
+    public static final int LINES_BUILD = 4;
+
+    //histograms which are not sections
+    /**
+     * Number of the line points drawn by the graph view per frame
+     */
+    public static final int POINTS_PER_FRAME = 5;
+
+    //counters
+    /**
+     * Requested selected windows
+     */
+    public static final int SELECTIONS_REQUESTED = 0;
+    /**
+     * Selected windows delivered to the graph view
+     */
+    public static final int SELECTIONS_DELIVERED = 1;
+    /**
+     * Calculated selected windows which were stale on delivery
+     */
+    public static final int SELECTIONS_DROPPED = 2;
+
+    private static final String[] SECTION_NAMES = new String[]{
+            "GraphVisualizer.onDraw",
+            "GraphController.drawLines",
+            "GraphController.sendSelectedWindow",
+            "GraphController.calculateSelectedWindow",
+            "GraphController.buildLines"
+    };
+
+    private static final int COUNTERS_COUNT = 3;
+
+    //latency resolution is 0.05ms up to 50ms
+    private static final long LATENCY_BUCKET_WIDTH = 50_000L;
+    private static final int LATENCY_BUCKETS_COUNT = 1000;
+    private static final long POINTS_BUCKET_WIDTH = 16L;
+    private static final int POINTS_BUCKETS_COUNT = 1024;
+
+    private static final boolean IS_TRACE_SUPPORTED = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+    private static volatile boolean isEnabled;
+
+    private static final Histogram[] histograms = new Histogram[]{
+            new Histogram(LATENCY_BUCKET_WIDTH, LATENCY_BUCKETS_COUNT),
+            new Histogram(LATENCY_BUCKET_WIDTH, LATENCY_BUCKETS_COUNT),
+            new Histogram(LATENCY_BUCKET_WIDTH, LATENCY_BUCKETS_COUNT),
+            new Histogram(LATENCY_BUCKET_WIDTH, LATENCY_BUCKETS_COUNT),
+            new Histogram(LATENCY_BUCKET_WIDTH, LATENCY_BUCKETS_COUNT),
+            new Histogram(POINTS_BUCKET_WIDTH, POINTS_BUCKETS_COUNT)
+    };
+
+    private static final long[] counters = new long[COUNTERS_COUNT];
+
+    private GraphMetrics() {
+    }
+
+    /**
+     * Enable or disable collecting of the metrics. Collected values are kept
+     *
+     * @param enabled true to collect metrics
+     */
+    public static void setEnabled(boolean enabled) {
+        isEnabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * @return copy of the collected values
+     */
+    @NonNull
+    public static Snapshot snapshot() {
+        final Stats[] stats = new Stats[histograms.length];
+
+        for (int i = 0; i < histograms.length; i++) {
+            stats[i] = histograms[i].stats();
+        }
+
+        final long[] countersCopy;
+
+        synchronized (counters) {
+            countersCopy = Arrays.copyOf(counters, counters.length);
+        }
+
+        return new Snapshot(countersCopy, stats);
+    }
+
+    /**
+     * Remove all collected values
+     */
+    public static void reset() {
+        for (Histogram histogram : histograms) {
+            histogram.reset();
+        }
+
+        synchronized (counters) {
+            Arrays.fill(counters, 0L);
+        }
+    }
+
+    /**
+     * Start the section. Should be paired with {@link #end(int, long)} on the same thread
+     *
+     * @param section section to start
+     * @return start time or -1 if metrics are disabled
+     */
+    static long begin(int section) {
+        if (!isEnabled) {
+            return -1L;
+        }
+
+        if (IS_TRACE_SUPPORTED) {
+            Trace.beginSection(SECTION_NAMES[section]);
+        }
+
+        return System.nanoTime();
+    }
+
+    /**
+     * End the section and record its latency
+     *
+     * @param section section to end
+     * @param start   value returned by {@link #begin(int)}
+     */
+    static void end(int section, long start) {
+        if (start < 0L) {
+            return;
+        }
+
+        final long latency = System.nanoTime() - start;
+
+        if (IS_TRACE_SUPPORTED) {
+            Trace.endSection();
+        }
+
+        histograms[section].record(latency);
+    }
+
+    /**
+     * @param histogram histogram to record to
+     * @param value     value to record
+     */
+    static void record(int histogram, long value) {
+        if (isEnabled) {
+            histograms[histogram].record(value);
+        }
+    }
+
+    /**
+     * @param counter counter to increment
+     */
+    static void count(int counter) {
+        if (isEnabled) {
+            synchronized (counters) {
+                counters[counter]++;
+            }
+        }
+    }
+
+    /**
+     * Values distribution in fixed width buckets. Values out of the buckets are counted by an overflow bucket
+     */
+    private static final class Histogram {
+        private final long bucketWidth;
+        //the last bucket is the overflow bucket
+        @NonNull
+        private final long[] buckets;
+
+        private long count;
+        private long sum;
+        private long max;
+
+        Histogram(long bucketWidth, int bucketsCount) {
+            this.bucketWidth = bucketWidth;
+            this.buckets = new long[bucketsCount + 1];
+        }
+
+        synchronized void record(long value) {
+            final long bucket = Math.max(0L, value) / bucketWidth;
+
+            buckets[(int) Math.min(bucket, buckets.length - 1)]++;
+
+            count++;
+            sum += value;
+            max = Math.max(max, value);
+        }
+
+        synchronized void reset() {
+            Arrays.fill(buckets, 0L);
+
+            count = 0L;
+            sum = 0L;
+            max = 0L;
+        }
+
+        @NonNull
+        synchronized Stats stats() {
+            return new Stats(count,
+                    count == 0L ? 0L : sum / count,
+                    percentile(0.5),
+                    percentile(0.95),
+                    percentile(0.99),
+                    max);
+        }
+
+        /**
+         * @return upper bound of the bucket which contains the percentile
+         */
+        private long percentile(double percentile) {
+            if (count == 0L) {
+                return 0L;
+            }
+
+            final long rank = Math.max(1L, (long) Math.ceil(percentile * count));
+
+            long seen = 0L;
+
+            for (int i = 0; i < buckets.length - 1; i++) {
+                seen += buckets[i];
+
+                if (seen >= rank) {
+                    return Math.min(max, (i + 1) * bucketWidth);
+                }
+            }
+
+            return max;
+        }
+    }
+
+    /**
+     * Distribution of the histogram values. Percentiles are precise to the histogram bucket width
+     */
+    public static final class Stats {
+        private final long count;
+        private final long mean;
+        private final long p50;
+        private final long p95;
+        private final long p99;
+        private final long max;
+
+        Stats(long count, long mean, long p50, long p95, long p99, long max) {
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p95 = p95;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMean() {
+            return mean;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP95() {
+            return p95;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            Stats stats = (Stats) o;
+
+            if (count != stats.count) {
+                return false;
+            }
+            if (mean != stats.mean) {
+                return false;
+            }
+            if (p50 != stats.p50) {
+                return false;
+            }
+            if (p95 != stats.p95) {
+                return false;
+            }
+            if (p99 != stats.p99) {
+                return false;
+            }
+            return max == stats.max;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = (int) (count ^ (count >>> 32));
+            result = 31 * result + (int) (mean ^ (mean >>> 32));
+            result = 31 * result + (int) (p50 ^ (p50 >>> 32));
+            result = 31 * result + (int) (p95 ^ (p95 >>> 32));
+            result = 31 * result + (int) (p99 ^ (p99 >>> 32));
+            result = 31 * result + (int) (max ^ (max >>> 32));
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "count=" + count +
+                    ", mean=" + mean +
+                    ", p50=" + p50 +
+                    ", p95=" + p95 +
+                    ", p99=" + p99 +
+                    ", max=" + max +
+                    '}';
+        }
+    }
+
+    /**
+     * Collected values at some moment
+     */
+    public static final class Snapshot {
+        @NonNull
+        private final long[] counters;
+        @NonNull
+        private final Stats[] stats;
+
+        Snapshot(@NonNull long[] counters, @NonNull Stats[] stats) {
+            this.counters = counters;
+            this.stats = stats;
+        }
+
+        /**
+         * @param counter one of the counters. E.g. {@link #SELECTIONS_REQUESTED}
+         * @return counter value
+         */
+        public long getCounter(int counter) {
+            return counters[counter];
+        }
+
+        /**
+         * @param histogram one of the sections or histograms. E.g. {@link #FRAME_DRAW}
+         * @return histogram values distribution
+         */
+        @NonNull
+        public Stats getStats(int histogram) {
+            return stats[histogram];
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            Snapshot snapshot = (Snapshot) o;
+
+            if (!Arrays.equals(counters, snapshot.counters)) {
+                return false;
+            }
+            return Arrays.equals(stats, snapshot.stats);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Arrays.hashCode(counters);
+            result = 31 * result + Arrays.hashCode(stats);
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot{" +
+                    "counters=" + Arrays.toString(counters) +
+                    ", stats=" + Arrays.toString(stats) +
+                    '}';
+        }
+    }
+}
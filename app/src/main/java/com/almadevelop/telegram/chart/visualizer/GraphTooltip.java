@@ -0,0 +1,277 @@
+package com.almadevelop.telegram.chart.visualizer;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.graphics.Typeface;
+import android.support.annotation.NonNull;
+import android.text.TextPaint;
+
+import com.almadevelop.telegram.chart.R;
+import com.almadevelop.telegram.chart.Utils;
+
+import java.text.DateFormatSymbols;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Locale;
+
+/**
+ * Values of the selected point drawn on the graph canvas: date header and a row per enabled line.
+ * Texts are written into preallocated char buffers and measured once per point, so moving between
+ * points does not allocate
+ */
+final class GraphTooltip {
+    //"-9223372036854775808"
+    private static final int MAX_LONG_LENGTH = 20;
+    private static final int MAX_DATE_LENGTH = 32;
+
+    private final Paint backgroundPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint borderPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final TextPaint headerPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final TextPaint valuePaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final TextPaint labelPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+
+    private final float padding;
+    private final float cornerRadius;
+    private final float columnSpacing;
+    private final float headerHeight;
+    private final float rowHeight;
+    private final float headerBaseline;
+    private final float rowBaseline;
+
+    //english names as the x axis labels use
+    @NonNull
+    private final String[] weekdays;
+    @NonNull
+    private final String[] months;
+    private final Calendar calendar = Calendar.getInstance();
+
+    private final char[] date = new char[MAX_DATE_LENGTH];
+    private int dateLength;
+    private float dateWidth;
+
+    //rows of the enabled lines
+    private int rowsCount;
+    @NonNull
+    private int[] rowColors = new int[0];
+    @NonNull
+    private String[] rowLabels = new String[0];
+    @NonNull
+    private float[] rowLabelWidths = new float[0];
+    //values are written from the end of the buffers
+    @NonNull
+    private char[][] rowValues = new char[0][];
+    @NonNull
+    private int[] rowValueStarts = new int[0];
+    @NonNull
+    private float[] rowValueWidths = new float[0];
+
+    private float width;
+    private float height;
+
+    private final RectF bounds = new RectF();
+
+    GraphTooltip(@NonNull Context context) {
+        final Resources res = context.getResources();
+
+        padding = res.getDimension(R.dimen.tooltip_padding);
+        cornerRadius = res.getDimension(R.dimen.tooltip_corner_radius);
+        columnSpacing = res.getDimension(R.dimen.tooltip_column_spacing);
+
+        backgroundPaint.setColor(Utils.getColor(context, R.color.white));
+
+        borderPaint.setStyle(Paint.Style.STROKE);
+        borderPaint.setStrokeWidth(res.getDimension(R.dimen.axis_width));
+        borderPaint.setColor(Utils.getColor(context, R.color.solitude));
+
+        headerPaint.setColor(Utils.getColor(context, R.color.tooltip_text));
+        headerPaint.setTextSize(res.getDimension(R.dimen.tooltip_header_size));
+        headerPaint.setTypeface(Typeface.DEFAULT_BOLD);
+
+        valuePaint.setTextSize(res.getDimension(R.dimen.tooltip_value_size));
+        valuePaint.setTypeface(Typeface.DEFAULT_BOLD);
+        valuePaint.setTextAlign(Paint.Align.RIGHT);
+
+        labelPaint.setTextSize(res.getDimension(R.dimen.tooltip_label_size));
+
+        final Paint.FontMetrics fm = new Paint.FontMetrics();
+
+        headerPaint.getFontMetrics(fm);
+        headerHeight = fm.descent - fm.ascent + padding;
+        headerBaseline = -fm.ascent;
+
+        valuePaint.getFontMetrics(fm);
+        rowHeight = fm.descent - fm.ascent;
+        rowBaseline = -fm.ascent;
+
+        final DateFormatSymbols symbols = new DateFormatSymbols(Locale.ENGLISH);
+        weekdays = symbols.getShortWeekdays();
+        months = symbols.getShortMonths();
+    }
+
+    /**
+     * Fill the tooltip with values of the window point
+     *
+     * @param window   selected window
+     * @param valuePos point position in the window
+     */
+    void setPoint(@NonNull SelectedGraphWindow window, int valuePos) {
+        setDate(window.getxValues().get(valuePos));
+
+        final GraphLinePath[] lines = window.getLines();
+
+        ensureRowsCapacity(lines.length);
+
+        rowsCount = 0;
+
+        float rowsWidth = 0.0f;
+
+        for (int i = 0; i < lines.length; i++) {
+            final GraphLinePath line = lines[i];
+
+            if (!line.isEnabled()) {
+                continue;
+            }
+
+            final int row = rowsCount++;
+
+            if (rowLabels[row] != line.getLabel()) {
+                //labels are measured only when the line is changed
+                rowLabels[row] = line.getLabel();
+                rowLabelWidths[row] = labelPaint.measureText(line.getLabel());
+            }
+
+            final char[] value = rowValues[row];
+            final int valueStart = writeLong(window.getyValues()[i].get(valuePos), value);
+
+            rowColors[row] = line.getColor();
+            rowValueStarts[row] = valueStart;
+            rowValueWidths[row] = valuePaint.measureText(value, valueStart, value.length - valueStart);
+
+            rowsWidth = Math.max(rowsWidth, rowLabelWidths[row] + columnSpacing + rowValueWidths[row]);
+        }
+
+        width = Math.max(dateWidth, rowsWidth) + padding * 2.0f;
+        height = headerHeight + rowHeight * rowsCount + padding * 2.0f;
+    }
+
+    float getWidth() {
+        return width;
+    }
+
+    float getHeight() {
+        return height;
+    }
+
+    /**
+     * @param canvas canvas to draw at
+     * @param left   left position of the tooltip
+     * @param top    top position of the tooltip
+     */
+    void draw(@NonNull Canvas canvas, float left, float top) {
+        bounds.set(left, top, left + width, top + height);
+
+        canvas.drawRoundRect(bounds, cornerRadius, cornerRadius, backgroundPaint);
+        canvas.drawRoundRect(bounds, cornerRadius, cornerRadius, borderPaint);
+
+        final float contentLeft = left + padding;
+        final float contentRight = left + width - padding;
+
+        float y = top + padding;
+
+        canvas.drawText(date, 0, dateLength, contentLeft, y + headerBaseline, headerPaint);
+
+        y += headerHeight;
+
+        for (int row = 0; row < rowsCount; row++) {
+            final char[] value = rowValues[row];
+            final int valueStart = rowValueStarts[row];
+
+            labelPaint.setColor(rowColors[row]);
+            valuePaint.setColor(rowColors[row]);
+
+            canvas.drawText(rowLabels[row], contentLeft, y + rowBaseline, labelPaint);
+            canvas.drawText(value, valueStart, value.length - valueStart, contentRight, y + rowBaseline, valuePaint);
+
+            y += rowHeight;
+        }
+    }
+
+    /**
+     * Write date in "EEE, MMM d" format to the date buffer
+     */
+    private void setDate(long millis) {
+        calendar.setTimeInMillis(millis);
+
+        int length = 0;
+
+        final String weekday = weekdays[calendar.get(Calendar.DAY_OF_WEEK)];
+        weekday.getChars(0, weekday.length(), date, length);
+        length += weekday.length();
+
+        date[length++] = ',';
+        date[length++] = ' ';
+
+        final String month = months[calendar.get(Calendar.MONTH)];
+        month.getChars(0, month.length(), date, length);
+        length += month.length();
+
+        date[length++] = ' ';
+
+        final int day = calendar.get(Calendar.DAY_OF_MONTH);
+
+        if (day >= 10) {
+            date[length++] = (char) ('0' + day / 10);
+        }
+        date[length++] = (char) ('0' + day % 10);
+
+        dateLength = length;
+        dateWidth = headerPaint.measureText(date, 0, dateLength);
+    }
+
+    private void ensureRowsCapacity(int count) {
+        if (rowValues.length >= count) {
+            return;
+        }
+
+        final int oldCount = rowValues.length;
+
+        rowColors = Arrays.copyOf(rowColors, count);
+        rowLabels = Arrays.copyOf(rowLabels, count);
+        rowLabelWidths = Arrays.copyOf(rowLabelWidths, count);
+        rowValues = Arrays.copyOf(rowValues, count);
+        rowValueStarts = Arrays.copyOf(rowValueStarts, count);
+        rowValueWidths = Arrays.copyOf(rowValueWidths, count);
+
+        for (int i = oldCount; i < count; i++) {
+            rowValues[i] = new char[MAX_LONG_LENGTH];
+        }
+    }
+
+    /**
+     * Write decimal value to the end of the buffer
+     *
+     * @param value value to write
+     * @param dst   buffer of {@link #MAX_LONG_LENGTH} chars
+     * @return first written position
+     */
+    private static int writeLong(long value, @NonNull char[] dst) {
+        int pos = dst.length;
+
+        //negative values are used to support Long.MIN_VALUE
+        long negative = value < 0 ? value : -value;
+
+        do {
+            dst[--pos] = (char) ('0' - negative % 10);
+            negative /= 10;
+        } while (negative != 0);
+
+        if (value < 0) {
+            dst[--pos] = '-';
+        }
+
+        return pos;
+    }
+}
@@ -1,14 +1,9 @@
 package com.almadevelop.telegram.chart.visualizer;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
-import android.animation.PropertyValuesHolder;
-import android.animation.ValueAnimator;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Matrix;
 import android.graphics.Paint;
-import android.graphics.PathMeasure;
 import android.graphics.RectF;
 import android.os.Build;
 import android.support.annotation.ColorInt;
@@ -20,10 +15,11 @@ import android.util.Log;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.Toast;
 
 import com.almadevelop.telegram.chart.R;
 import com.almadevelop.telegram.chart.Utils;
+import com.almadevelop.telegram.chart.graph.Column;
+import com.almadevelop.telegram.chart.graph.SortedColumns;
 import com.almadevelop.telegram.chart.graph.GraphLine;
 
 import java.text.SimpleDateFormat;
@@ -31,14 +27,12 @@ import java.util.Date;
 import java.util.Locale;
 
 public class GraphVisualizer extends View implements GraphController.Callback {
-    private static final String HOLDER_SELECTED_MAPPED_TOP = "selected_window_top_m";
-    private static final String HOLDER_SELECTED_MAPPED_BOTTOM = "selected_window_bottom_m";
-
-    private static final String HOLDER_SELECTED_TOP = "selected_window_top";
-    private static final String HOLDER_SELECTED_BOTTOM = "selected_window_bottom";
-
     private final Paint linePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    //transformation from the lines geometry to the shown selection bounds. Applied to the vertices at the draw time
     private final Matrix lineMatrix = new Matrix();
+    //places lines of a new selected window to the expected bounds
+    private final Matrix baseMatrix = new Matrix();
+    private final RectF mappedSelectionBounds = new RectF();
     private float labelBottomPadding;
     private float lineWidth;
     private float scaleLineWidth;
@@ -51,6 +45,13 @@ public class GraphVisualizer extends View implements GraphController.Callback {
     private int selectedLineColor;
 
     private final SimpleDateFormat xFormatter = new SimpleDateFormat("MMM d", Locale.ENGLISH);
+    private final Date date = new Date();
+    private final Paint.FontMetrics fontMetrics = new Paint.FontMetrics();
+    //formatted dates are cached while x axis extremums are the same
+    private long firstDateValue = Long.MIN_VALUE;
+    private String firstDate;
+    private long lastDateValue = Long.MIN_VALUE;
+    private String lastDate;
 
     //bounds of the whole graph
     private final RectF graphBounds = new RectF();
@@ -60,7 +61,10 @@ public class GraphVisualizer extends View implements GraphController.Callback {
     private final RectF newSelectionBounds = new RectF();
 
     private SelectedGraphWindow currentSelectedWindow;
-    private ValueAnimator linesBoundsAnimator;
+    //animated top and bottom of the shown selection bounds
+    private final AnimationEngine.Listener boundsAnimationListener = this::onBoundsAnimationFrame;
+    private final AnimationEngine.Slot selectionTop = AnimationEngine.getInstance().newSlot(0.0f, 300, boundsAnimationListener);
+    private final AnimationEngine.Slot selectionBottom = AnimationEngine.getInstance().newSlot(0.0f, 300, boundsAnimationListener);
 
     private AxisScale xScale;
     private AxisScale yScale;
@@ -68,7 +72,19 @@ public class GraphVisualizer extends View implements GraphController.Callback {
     private final AxisMath yMath = new AxisMath();
     private final AxisMath xMath = new AxisMath();
 
-    private SelectedData selectedData;
+    private final SelectedData selectedData = new SelectedData();
+
+    //values of the selected point
+    private GraphTooltip tooltip;
+    private float tooltipMargin;
+    private final AnimationEngine.Slot tooltipLeft = AnimationEngine.getInstance().newSlot(0.0f, 150, this::invalidate);
+
+    //null if the debug HUD is disabled
+    private GraphDebugHud debugHud;
+    //number of the shown debug HUDs. Changed on the main thread only
+    private static int debugHudsCount;
+    //true if metrics were enabled by the first shown HUD, so they are disabled with the last hidden one
+    private static boolean isMetricsEnabledByHud;
 
     public GraphVisualizer(Context context) {
         this(context, null);
@@ -123,31 +139,59 @@ public class GraphVisualizer extends View implements GraphController.Callback {
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
 
+        final long start = GraphMetrics.begin(GraphMetrics.FRAME_DRAW);
+
         if (currentSelectedWindow != null) {
             drawXScale(canvas);
             drawYScale(canvas);
 
+            canvas.save();
             canvas.scale(1, -1, graphBounds.centerX(), graphBounds.centerY());
 
-            if(selectedData != null){
+            if (selectedData.isSelected) {
                 canvas.drawLine(selectedData.xPos, graphBounds.bottom, selectedData.xPos, graphBounds.top, selectedLinePaint());
             }
 
-            for (int i = 0; i<currentSelectedWindow.getLines().length; i++) {
-                final GraphLinePath line = currentSelectedWindow.getLines()[i];
+            int pointsCount = 0;
+
+            for (GraphLinePath line : currentSelectedWindow.getLines()) {
+                if (line.isEnabled()) {
+                    line.getShape().draw(canvas, linePaint(line.getColor()), lineMatrix);
+
+                    pointsCount += line.getShape().getPointsCount();
+                }
+            }
+
+            GraphMetrics.record(GraphMetrics.POINTS_PER_FRAME, pointsCount);
 
-                final Paint linePaint = linePaint(line.getColor());
+            if (selectedData.isSelected) {
+                for (int i = 0; i < currentSelectedWindow.getLines().length; i++) {
+                    final GraphLinePath line = currentSelectedWindow.getLines()[i];
 
-                canvas.drawPath(line.getPath(), linePaint);
+                    if (!line.isEnabled()) {
+                        continue;
+                    }
 
-                if(selectedData != null){
-                    final long[] yValues = currentSelectedWindow.getyValues()[i];
+                    final Column yValues = currentSelectedWindow.getyValues()[i];
 
-                    final float y = yMath.valueToPixel(yValues[selectedData.valuePos]);
+                    final float y = yMath.valueToPixel(yValues.get(selectedData.valuePos));
 
-                    canvas.drawCircle(selectedData.xPos, y, 10,linePaint);
+                    canvas.drawCircle(selectedData.xPos, y, 10, linePaint(line.getColor()));
                 }
             }
+
+            canvas.restore();
+
+            if (selectedData.isSelected) {
+                tooltip.draw(canvas, tooltipLeft.get(), graphBounds.top + tooltipMargin);
+            }
+        }
+
+        GraphMetrics.end(GraphMetrics.FRAME_DRAW, start);
+
+        //not a part of the measured frame
+        if (debugHud != null) {
+            debugHud.draw(canvas, graphBounds.left + tooltipMargin, graphBounds.top + tooltipMargin);
         }
     }
 
@@ -162,30 +206,30 @@ public class GraphVisualizer extends View implements GraphController.Callback {
                     final float xPos = event.getX();
 
                     if (xPos >= expectedLinesBounds.left && xPos <= expectedLinesBounds.right) {
-                        final int pointPosition = xMath.pixelToRoundPointPosition(xPos);
-
-                        final float realXPos = xMath.valueToPixel(currentSelectedWindow.getxValues()[pointPosition]);
-
-                        if(selectedData != null && selectedData.xPos == realXPos){
-                            return false;
+                        //points can be unevenly spaced, so the closest one is searched by its x value
+                        final Column xValues = currentSelectedWindow.getxValues();
+                        int pointPosition = SortedColumns.nearestIndex(xValues, xMath.pixelToValue(xPos));
+
+                        //window can have points outside of the selection. Prefer the points inside
+                        if (xValues.get(pointPosition) < currentSelectedWindow.getxLowExtremum() && pointPosition < xValues.size() - 1) {
+                            pointPosition++;
+                        } else if (xValues.get(pointPosition) > currentSelectedWindow.getxTopExtremum() && pointPosition > 0) {
+                            pointPosition--;
                         }
 
-                        final StringBuilder sb = new StringBuilder();
-
-                        for(int i = 0; i<currentSelectedWindow.getLines().length; i++){
-                            final GraphLinePath line = currentSelectedWindow.getLines()[i];
-                            final long value = currentSelectedWindow.getyValues()[i][pointPosition];
+                        final float realXPos = xMath.valueToPixel(xValues.get(pointPosition));
 
-                            if(sb.length() > 0){
-                                sb.append('\n');
-                            }
-
-                            sb.append(line.getLabel()).append(": ").append(value);
+                        if (selectedData.isSelected && selectedData.xPos == realXPos) {
+                            return true;
                         }
 
-                        Toast.makeText(getContext(), sb, Toast.LENGTH_SHORT).show();
+                        //tooltip is moved from the previous point or shown in place
+                        final boolean wasSelected = selectedData.isSelected;
+
+                        selectedData.set(realXPos, pointPosition);
 
-                        selectedData = new SelectedData(realXPos, pointPosition);
+                        tooltip.setPoint(currentSelectedWindow, pointPosition);
+                        moveTooltip(realXPos, wasSelected);
 
                         invalidate();
 
@@ -203,8 +247,8 @@ public class GraphVisualizer extends View implements GraphController.Callback {
     public void onSelectionChanged(SelectedGraphWindow selectedWindow) {
         removeSelection();
 
-        yMath.setValues(selectedWindow.getyTopExtremum(), 0, selectedWindow.getxValues().length);
-        xMath.setValues(selectedWindow.getxTopExtremum(), selectedWindow.getxLowExtremum(), selectedWindow.getxValues().length);
+        yMath.setValues(selectedWindow.getyTopExtremum(), 0);
+        xMath.setValues(selectedWindow.getxTopExtremum(), selectedWindow.getxLowExtremum());
 
         xScale.setAxisMinMax(selectedWindow.getxTopExtremum(), selectedWindow.getxLowExtremum());
         yScale.setAxisMinMax(selectedWindow.getyTopExtremum(), 0);
@@ -212,8 +256,15 @@ public class GraphVisualizer extends View implements GraphController.Callback {
         //lift up lines to the lowest graph value
         expectedLinesBounds.top = graphBounds.top + yMath.valueToPixel(selectedWindow.getyLowExtremum());
 
+        //lines of the window are placed to the expected bounds once. Animation changes the matrix only
+        baseMatrix.setRectToRect(selectedWindow.getBounds(), expectedLinesBounds, Matrix.ScaleToFit.FILL);
+
+        for (GraphLinePath line : selectedWindow.getLines()) {
+            line.getShape().transform(baseMatrix);
+        }
+
         if (this.currentSelectedWindow == null || currentSelectedWindow.hasSameExtremums(selectedWindow)) {
-            if (linesBoundsAnimator == null || !linesBoundsAnimator.isStarted()) {
+            if (!selectionTop.isRunning() && !selectionBottom.isRunning()) {
                 changeSelectedWindowBottom(selectedWindow);
             } else {
                 preserveSelectedWindowBottom(selectedWindow);
@@ -221,50 +272,50 @@ public class GraphVisualizer extends View implements GraphController.Callback {
         } else {
             preserveSelectedWindowBottom(selectedWindow);
 
-            //apply matrix to the selection window bounds
-            final RectF currentMappedSelectionBounds = new RectF(selectedWindow.getBounds());
-            lineMatrix.mapRect(currentMappedSelectionBounds);
+            if (!selectionTop.isRunning() && !selectionBottom.isRunning()) {
+                setLayerType(View.LAYER_TYPE_HARDWARE, null);
+            }
+
+            //animate change from the shown bounds to the new selected window bounds. Running animation is retargeted
+            selectionTop.animateTo(selectedWindow.getBounds().top);
+            selectionBottom.animateTo(selectedWindow.getBounds().bottom);
+        }
+
+        this.currentSelectedWindow = selectedWindow;
+
+        updateLineMatrix();
 
-            if (linesBoundsAnimator == null) {
-                linesBoundsAnimator = newAmimator();
+        invalidate();
+    }
+
+    @Override
+    public float getSelectionWidth() {
+        return graphBounds.width();
+    }
+
+    /**
+     * Show or hide values of {@link GraphMetrics} on the graph. Metrics collecting is enabled with the HUD.
+     * If it was disabled before, it is disabled again when the last HUD is hidden
+     *
+     * @param enabled true to show the HUD
+     */
+    public void setDebugHudEnabled(boolean enabled) {
+        if (enabled && debugHud == null) {
+            if (debugHudsCount++ == 0 && !GraphMetrics.isEnabled()) {
+                isMetricsEnabledByHud = true;
+                GraphMetrics.setEnabled(true);
             }
 
-            if (linesBoundsAnimator.isStarted()) {
-                linesBoundsAnimator.cancel();
+            debugHud = new GraphDebugHud(getContext());
+        } else if (!enabled && debugHud != null) {
+            if (--debugHudsCount == 0 && isMetricsEnabledByHud) {
+                isMetricsEnabledByHud = false;
+                GraphMetrics.setEnabled(false);
             }
 
-            //animate change from current showed lines to the expected lines positions
-            final PropertyValuesHolder selectMappedTopHolder =
-                    PropertyValuesHolder.ofFloat(HOLDER_SELECTED_MAPPED_TOP,
-                            currentMappedSelectionBounds.top,
-                            expectedLinesBounds.top);
-            final PropertyValuesHolder selectMappedBottomHolder =
-                    PropertyValuesHolder.ofFloat(HOLDER_SELECTED_MAPPED_BOTTOM,
-                            currentMappedSelectionBounds.bottom,
-                            expectedLinesBounds.bottom);
-
-            //animate change from current selected window bounds to the current selected window bounds.
-            //It needed for proper positioning a new selected window if animation does not finished yet
-            final PropertyValuesHolder selectTopHolder =
-                    PropertyValuesHolder.ofFloat(HOLDER_SELECTED_TOP,
-                            newSelectionBounds.top,
-                            selectedWindow.getBounds().top);
-            final PropertyValuesHolder selectBottomHolder =
-                    PropertyValuesHolder.ofFloat(HOLDER_SELECTED_BOTTOM,
-                            newSelectionBounds.bottom,
-                            selectedWindow.getBounds().bottom);
-
-            linesBoundsAnimator.setValues(selectMappedTopHolder,
-                    selectMappedBottomHolder,
-                    selectTopHolder,
-                    selectBottomHolder);
-            linesBoundsAnimator.addUpdateListener(new BoundsUpdateListener(currentMappedSelectionBounds));
-            linesBoundsAnimator.setCurrentPlayTime(0);
-            linesBoundsAnimator.start();
+            debugHud = null;
         }
 
-        this.currentSelectedWindow = selectedWindow;
-
         invalidate();
     }
 
@@ -288,30 +339,75 @@ public class GraphVisualizer extends View implements GraphController.Callback {
     }
 
     private void removeSelection() {
-        selectedData = null;
+        selectedData.isSelected = false;
+
+        tooltipLeft.stop();
 
         invalidate();
     }
 
-    private void changeSelectedWindowBottom(SelectedGraphWindow selectedWindow) {
-        lineMatrix.setRectToRect(selectedWindow.getBounds(), expectedLinesBounds, Matrix.ScaleToFit.FILL);
+    /**
+     * Move tooltip to the selected point. Tooltip is kept inside the graph bounds
+     *
+     * @param xPos    x position of the selected point
+     * @param animate animate from the current tooltip position
+     */
+    private void moveTooltip(float xPos, boolean animate) {
+        final float targetLeft = Math.max(graphBounds.left,
+                Math.min(xPos - tooltip.getWidth() * 0.5f, graphBounds.right - tooltip.getWidth()));
+
+        if (animate) {
+            tooltipLeft.animateTo(targetLeft);
+        } else {
+            tooltipLeft.set(targetLeft);
+        }
+    }
 
-        for (GraphLinePath line : selectedWindow.getLines()) {
-            line.getPath().transform(lineMatrix);
+    /**
+     * Apply animated selection bounds
+     */
+    private void onBoundsAnimationFrame() {
+        newSelectionBounds.top = selectionTop.get();
+        newSelectionBounds.bottom = selectionBottom.get();
+
+        if (!selectionTop.isRunning() && !selectionBottom.isRunning()) {
+            setLayerType(View.LAYER_TYPE_SOFTWARE, null);
         }
 
+        if (currentSelectedWindow != null) {
+            updateLineMatrix();
+        }
+
+        invalidate();
+    }
+
+    private void changeSelectedWindowBottom(SelectedGraphWindow selectedWindow) {
         newSelectionBounds.set(selectedWindow.getBounds());
+
+        selectionTop.set(newSelectionBounds.top);
+        selectionBottom.set(newSelectionBounds.bottom);
     }
 
     private void preserveSelectedWindowBottom(SelectedGraphWindow selectedWindow) {
         newSelectionBounds.right = selectedWindow.getBounds().right;
         newSelectionBounds.left = selectedWindow.getBounds().left;
+    }
 
-        lineMatrix.setRectToRect(newSelectionBounds, expectedLinesBounds, Matrix.ScaleToFit.FILL);
-
-        for (GraphLinePath line : selectedWindow.getLines()) {
-            line.getPath().transform(lineMatrix);
+    /**
+     * Update transformation of the current lines to the shown selection bounds
+     */
+    private void updateLineMatrix() {
+        if (newSelectionBounds.equals(currentSelectedWindow.getBounds())) {
+            //lines are already at the expected bounds
+            lineMatrix.reset();
+            return;
         }
+
+        //shown selection bounds in the lines coordinates
+        mappedSelectionBounds.set(newSelectionBounds);
+        baseMatrix.mapRect(mappedSelectionBounds);
+
+        lineMatrix.setRectToRect(mappedSelectionBounds, expectedLinesBounds, Matrix.ScaleToFit.FILL);
     }
 
     private int measureWidth(int widthMeasureSpec) {
@@ -344,6 +440,8 @@ public class GraphVisualizer extends View implements GraphController.Callback {
 
         linePaint.setStyle(Paint.Style.STROKE);
 
+        tooltip = new GraphTooltip(getContext());
+        tooltipMargin = getResources().getDimension(R.dimen.tooltip_margin);
 
         xScale = AxisScale.calculatableSizeScale(0.2f);
         yScale = AxisScale.calculatableSizeScale(0.2f);
@@ -378,19 +476,24 @@ public class GraphVisualizer extends View implements GraphController.Callback {
     }
 
     private void drawXScale(Canvas canvas) {
-        final Date date = new Date();
-
-        final Paint.FontMetrics fm = labelPaint.getFontMetrics();
+        final Paint.FontMetrics fm = this.fontMetrics;
+        labelPaint.getFontMetrics(fm);
 
         final float y = getHeight() - fm.descent;
 
-        date.setTime(currentSelectedWindow.getxLowExtremum());
-        final String firstDate = xFormatter.format(date);
+        if (firstDateValue != currentSelectedWindow.getxLowExtremum()) {
+            firstDateValue = currentSelectedWindow.getxLowExtremum();
+            date.setTime(firstDateValue);
+            firstDate = xFormatter.format(date);
+        }
         labelPaint.setTextAlign(Paint.Align.LEFT);
         canvas.drawText(firstDate, 0, y, labelPaint);
 
-        date.setTime(currentSelectedWindow.getxTopExtremum());
-        final String lastDate = xFormatter.format(date);
+        if (lastDateValue != currentSelectedWindow.getxTopExtremum()) {
+            lastDateValue = currentSelectedWindow.getxTopExtremum();
+            date.setTime(lastDateValue);
+            lastDate = xFormatter.format(date);
+        }
         labelPaint.setTextAlign(Paint.Align.RIGHT);
         canvas.drawText(lastDate, graphBounds.width(), y, labelPaint);
 
@@ -418,73 +521,15 @@ public class GraphVisualizer extends View implements GraphController.Callback {
 //        }
     }
 
-    private ValueAnimator newAmimator() {
-        final ValueAnimator linesBoundsAnimator = new ValueAnimator();
-        linesBoundsAnimator.addListener(new AnimatorListenerAdapter() {
-            @Override
-            public void onAnimationStart(Animator animation) {
-                setLayerType(View.LAYER_TYPE_HARDWARE, null);
-            }
-
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                ((ValueAnimator) animation).removeAllUpdateListeners();
-
-                setLayerType(View.LAYER_TYPE_SOFTWARE, null);
-            }
-
-            @Override
-            public void onAnimationCancel(Animator animation) {
-                ((ValueAnimator) animation).removeAllUpdateListeners();
-            }
-        });
-        linesBoundsAnimator.setDuration(300);
-
-        return linesBoundsAnimator;
-    }
-
     private static class SelectedData {
-        private final float xPos;
-        private final int valuePos;
+        private boolean isSelected;
+        private float xPos;
+        private int valuePos;
 
-        SelectedData(float xPos, int valuePos) {
+        void set(float xPos, int valuePos) {
+            this.isSelected = true;
             this.xPos = xPos;
             this.valuePos = valuePos;
         }
     }
-
-    private class BoundsUpdateListener implements ValueAnimator.AnimatorUpdateListener {
-        //current mapped lines positions
-        private final RectF currentBounds;
-        //expected lines position
-        private final RectF targetBounds;
-
-        BoundsUpdateListener(RectF currentLinesVBounds) {
-            this.currentBounds = currentLinesVBounds;
-
-            //set top and bottom values to th current values. It will be changed bt animator
-            this.targetBounds = new RectF(expectedLinesBounds.left,
-                    currentBounds.top,
-                    expectedLinesBounds.right,
-                    currentBounds.bottom);
-        }
-
-        @Override
-        public void onAnimationUpdate(ValueAnimator animation) {
-            targetBounds.top = (float) animation.getAnimatedValue(HOLDER_SELECTED_MAPPED_TOP);
-            targetBounds.bottom = (float) animation.getAnimatedValue(HOLDER_SELECTED_MAPPED_BOTTOM);
-
-            newSelectionBounds.top = (float) animation.getAnimatedValue(HOLDER_SELECTED_TOP);
-            newSelectionBounds.bottom = (float) animation.getAnimatedValue(HOLDER_SELECTED_BOTTOM);
-
-            lineMatrix.setRectToRect(currentBounds, targetBounds, Matrix.ScaleToFit.FILL);
-            lineMatrix.mapRect(currentBounds);
-
-            for (GraphLinePath line : currentSelectedWindow.getLines()) {
-                line.getPath().transform(lineMatrix);
-            }
-
-            invalidate();
-        }
-    }
 }
@@ -0,0 +1,186 @@
+package com.almadevelop.telegram.chart.visualizer;
+
+import android.support.annotation.NonNull;
+
+import com.almadevelop.telegram.chart.graph.GraphLine;
+
+import java.util.List;
+
+/**
+ * Top and low extremums of the visible graph lines.
+ * Lines visibility is stored as a bitmask indexed by the line id. Extremums of the visible lines are kept in
+ * a max/min tree over the lines, so a visibility change costs O(log lines) and the result is read in O(1).
+ * Extremums of all lines are used if every line is hidden
+ */
+final class LineExtremums {
+    private final int linesCount;
+
+    //visibility bits of the lines. Bit of the line is (lineId % 64) of word (lineId / 64)
+    @NonNull
+    private final long[] visibility;
+    private int visibleCount;
+
+    @NonNull
+    private final long[] lineTops;
+    @NonNull
+    private final long[] lineLows;
+
+    //tree nodes. Leaves of the lines start at linesCount, node i is a parent of nodes 2i and 2i+1. Root is 1
+    @NonNull
+    private final long[] tops;
+    @NonNull
+    private final long[] lows;
+
+    //extremums of all lines
+    private final long allTop;
+    private final long allLow;
+
+    /**
+     * All lines are visible initially
+     *
+     * @param lines graph lines. Index of the line is its id
+     */
+    LineExtremums(@NonNull List<GraphLine> lines) {
+        if (lines == null) {
+            throw new IllegalArgumentException("Lines cannot be null");
+        }
+
+        linesCount = lines.size();
+        visibility = new long[(linesCount + 63) >>> 6];
+        lineTops = new long[linesCount];
+        lineLows = new long[linesCount];
+        tops = new long[linesCount * 2];
+        lows = new long[linesCount * 2];
+
+        long allTop = Long.MIN_VALUE;
+        long allLow = Long.MAX_VALUE;
+
+        for (int id = 0; id < linesCount; id++) {
+            final GraphLine line = lines.get(id);
+
+            lineTops[id] = line.getTopExtremum();
+            lineLows[id] = line.getLowExtremum();
+
+            allTop = Math.max(allTop, lineTops[id]);
+            allLow = Math.min(allLow, lineLows[id]);
+
+            visibility[id >>> 6] |= 1L << id;
+        }
+
+        this.allTop = allTop;
+        this.allLow = allLow;
+
+        visibleCount = linesCount;
+
+        rebuild();
+    }
+
+    /**
+     * @return top extremum of the visible lines or of all lines if every line is hidden
+     */
+    long getTop() {
+        return visibleCount == 0 ? allTop : tops[1];
+    }
+
+    /**
+     * @return low extremum of the visible lines or of all lines if every line is hidden
+     */
+    long getLow() {
+        return visibleCount == 0 ? allLow : lows[1];
+    }
+
+    boolean isVisible(int lineId) {
+        return (visibility[lineId >>> 6] & (1L << lineId)) != 0;
+    }
+
+    int getVisibleCount() {
+        return visibleCount;
+    }
+
+    /**
+     * Change visibility of a single line
+     *
+     * @param lineId  id of the line
+     * @param visible new visibility
+     * @return true if visibility was changed
+     */
+    boolean setVisible(int lineId, boolean visible) {
+        if (!changeBit(lineId, visible)) {
+            return false;
+        }
+
+        int node = lineId + linesCount;
+
+        setLeaf(node, lineId, visible);
+
+        for (node >>>= 1; node > 0; node >>>= 1) {
+            setParent(node);
+        }
+
+        return true;
+    }
+
+    /**
+     * Change visibility of several lines at once. The tree is rebuilt once
+     *
+     * @param visible new visibility indexed by the line id
+     * @return true if visibility of any line was changed
+     */
+    boolean setVisible(@NonNull boolean[] visible) {
+        if (visible == null) {
+            throw new IllegalArgumentException("Visible cannot be null");
+        }
+        if (visible.length != linesCount) {
+            throw new IllegalArgumentException("Visibility of " + linesCount + " lines expected. Got: " + visible.length);
+        }
+
+        boolean changed = false;
+
+        for (int id = 0; id < linesCount; id++) {
+            changed |= changeBit(id, visible[id]);
+        }
+
+        if (changed) {
+            rebuild();
+        }
+
+        return changed;
+    }
+
+    /**
+     * @return true if the bit was changed
+     */
+    private boolean changeBit(int lineId, boolean visible) {
+        if (isVisible(lineId) == visible) {
+            return false;
+        }
+
+        visibility[lineId >>> 6] ^= 1L << lineId;
+        visibleCount += visible ? 1 : -1;
+
+        return true;
+    }
+
+    private void rebuild() {
+        for (int id = 0; id < linesCount; id++) {
+            setLeaf(id + linesCount, id, isVisible(id));
+        }
+
+        for (int node = linesCount - 1; node > 0; node--) {
+            setParent(node);
+        }
+    }
+
+    /**
+     * Hidden line does not affect extremums of its parents
+     */
+    private void setLeaf(int node, int lineId, boolean visible) {
+        tops[node] = visible ? lineTops[lineId] : Long.MIN_VALUE;
+        lows[node] = visible ? lineLows[lineId] : Long.MAX_VALUE;
+    }
+
+    private void setParent(int node) {
+        tops[node] = Math.max(tops[node << 1], tops[(node << 1) + 1]);
+        lows[node] = Math.min(lows[node << 1], lows[(node << 1) + 1]);
+    }
+}
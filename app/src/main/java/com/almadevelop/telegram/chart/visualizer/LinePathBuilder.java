@@ -0,0 +1,47 @@
+package com.almadevelop.telegram.chart.visualizer;
+
+import android.support.annotation.NonNull;
+
+import com.almadevelop.telegram.chart.graph.Column;
+import com.almadevelop.telegram.chart.graph.RangeExtremumIndex;
+
+/**
+ * Builds line paths through every point of the line.
+ * X positions are taken from the x axis values, so points do not need to be evenly spaced.
+ * Lines with more points than pixels are built by {@link MinMaxDecimator}
+ */
+final class LinePathBuilder {
+    private LinePathBuilder() {
+    }
+
+    /**
+     * Fill line with the line values of the range
+     *
+     * @param line    line to fill. It will be reset
+     * @param index   index of the line values
+     * @param start   first point (inclusive)
+     * @param end     last point (exclusive)
+     * @param xValues x axis values of the line points
+     * @param xMath   x axis math
+     * @param yMath   y axis math
+     */
+    static void build(@NonNull LineShape line,
+                      @NonNull RangeExtremumIndex index,
+                      int start,
+                      int end,
+                      @NonNull Column xValues,
+                      @NonNull AxisMath xMath,
+                      @NonNull AxisMath yMath) {
+        line.reset();
+
+        if (start >= end) {
+            return;
+        }
+
+        line.moveTo(xMath.valueToPixel(xValues.get(start)), yMath.valueToPixel(index.getLevelMax(0, start)));
+
+        for (int i = start + 1; i < end; i++) {
+            line.lineTo(xMath.valueToPixel(xValues.get(i)), yMath.valueToPixel(index.getLevelMax(0, i)));
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.almadevelop.telegram.chart.visualizer;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.support.annotation.NonNull;
+
+/**
+ * Available ways to store and draw graph lines
+ */
+public enum LineRenderer {
+    /**
+     * Lines are {@link Path} objects drawn by {@link Canvas#drawPath(Path, Paint)}
+     */
+    PATH,
+    /**
+     * Lines are reusable arrays of segment end points drawn by {@link Canvas#drawLines(float[], int, int, Paint)}
+     */
+    SEGMENTS;
+
+    /**
+     * @return new empty line geometry for this renderer
+     */
+    @NonNull
+    LineShape newShape() {
+        switch (this) {
+            case PATH:
+                return new PathLineShape();
+            case SEGMENTS:
+                return new SegmentsLineShape();
+            default:
+                throw new IllegalStateException("Unsupported renderer " + this);
+        }
+    }
+}
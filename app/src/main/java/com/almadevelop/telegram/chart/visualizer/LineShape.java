@@ -0,0 +1,55 @@
+package com.almadevelop.telegram.chart.visualizer;
+
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.support.annotation.NonNull;
+
+/**
+ * Geometry of a single line. Implementations are provided by {@link LineRenderer}
+ */
+interface LineShape {
+    /**
+     * @return renderer which created this shape
+     */
+    @NonNull
+    LineRenderer getRenderer();
+
+    /**
+     * Remove all vertices. Allocated buffers are kept
+     */
+    void reset();
+
+    /**
+     * Start the line from the provided point
+     */
+    void moveTo(float x, float y);
+
+    /**
+     * Add segment from the last point to the provided one
+     */
+    void lineTo(float x, float y);
+
+    /**
+     * @return number of the line points added since the last {@link #reset()}
+     */
+    int getPointsCount();
+
+    /**
+     * Apply matrix to all vertices
+     *
+     * @param matrix matrix to apply
+     */
+    void transform(@NonNull Matrix matrix);
+
+    /**
+     * Draw the line with the matrix applied to a copy of its vertices. The shape itself is not changed.
+     * Unlike {@link Canvas#concat(Matrix)} the matrix does not scale the stroke, so the line width
+     * is the same for any direction of the segments
+     *
+     * @param canvas canvas to draw at
+     * @param paint  line paint
+     * @param matrix matrix to apply to the vertices
+     */
+    void draw(@NonNull Canvas canvas, @NonNull Paint paint, @NonNull Matrix matrix);
+}
@@ -0,0 +1,259 @@
+package com.almadevelop.telegram.chart.visualizer;
+
+import android.support.annotation.NonNull;
+
+import com.almadevelop.telegram.chart.graph.Column;
+import com.almadevelop.telegram.chart.graph.RangeExtremumIndex;
+import com.almadevelop.telegram.chart.graph.SortedColumns;
+
+/**
+ * Min/max per pixel column decimation of a single line.
+ * Columns are bounded by pixels, not by the number of points: column k holds the points with x values in
+ * [origin + k * columnWidth, origin + (k + 1) * columnWidth), where the origin is the first x value of the line.
+ * Each column is drawn by the min and max of its points at the middle between its first and last point,
+ * so spikes stay visible and a column never spans a gap wider than a pixel. Empty columns are skipped,
+ * so gaps are drawn as a single segment between their edge points.
+ * <p>
+ * While the column width is not changed (e.g. the selected window is moved) columns of the previous
+ * build are reused and only new ones are calculated
+ */
+final class MinMaxDecimator {
+    @NonNull
+    private final RangeExtremumIndex index;
+
+    //grid of the cached columns
+    private double columnWidth;
+    private long origin;
+
+    //cached columns which were fully inside the previous range. Column k starts at the end of column k - 1
+    private int firstColumn;
+    private int columnsCount;
+    @NonNull
+    private int[] columnsEnd = new int[0];
+    @NonNull
+    private long[] columnsMax = new long[0];
+    @NonNull
+    private long[] columnsMin = new long[0];
+
+    //buffers for the next columns. Swapped with the current after each build
+    @NonNull
+    private int[] nextColumnsEnd = new int[0];
+    @NonNull
+    private long[] nextColumnsMax = new long[0];
+    @NonNull
+    private long[] nextColumnsMin = new long[0];
+
+    /**
+     * @param index extremum index of the line values
+     */
+    MinMaxDecimator(@NonNull RangeExtremumIndex index) {
+        if (index == null) {
+            throw new IllegalArgumentException("Index cannot be null");
+        }
+
+        this.index = index;
+    }
+
+    /**
+     * Is decimation needed for the provided number of points
+     *
+     * @param pointsCount number of points to draw
+     * @param width       width in pixels to draw at
+     * @return true if there are more points than pixels
+     */
+    static boolean isNeeded(int pointsCount, float width) {
+        return width > 0.0f && pointsCount > width;
+    }
+
+    /**
+     * Fill line with the decimated line values of the range
+     *
+     * @param line        line to fill. It will be reset
+     * @param start       first point (inclusive)
+     * @param end         last point (exclusive)
+     * @param columnWidth width of a pixel column in x axis values
+     * @param xValues     x axis values of the line points
+     * @param xMath       x axis math
+     * @param yMath       y axis math
+     */
+    void build(@NonNull LineShape line,
+               int start,
+               int end,
+               double columnWidth,
+               @NonNull Column xValues,
+               @NonNull AxisMath xMath,
+               @NonNull AxisMath yMath) {
+        line.reset();
+
+        if (start >= end) {
+            return;
+        }
+
+        //columns narrower than a value are not distinguishable
+        columnWidth = Math.max(1.0, columnWidth);
+
+        final long origin = xValues.get(0);
+
+        if (columnWidth != this.columnWidth || origin != this.origin) {
+            //all columns are changed
+            this.columnWidth = columnWidth;
+            this.origin = origin;
+            columnsCount = 0;
+        }
+
+        final int first = columnOf(xValues.get(start));
+        final int last = columnOf(xValues.get(end - 1));
+
+        //columns between the first and the last are not clipped by the range, so they can be cached
+        final int nextFirstColumn = first + 1;
+        final int nextColumnsCount = Math.max(0, last - first - 1);
+
+        ensureNextCapacity(nextColumnsCount);
+
+        float prevY = yMath.valueToPixel(index.getLevelMax(0, start));
+        line.moveTo(xMath.valueToPixel(xValues.get(start)), prevY);
+
+        int columnStart = start;
+
+        for (int column = first; column <= last && columnStart < end; column++) {
+            final int cached = column - firstColumn;
+            final int next = column - nextFirstColumn;
+            final boolean isInner = next >= 0 && next < nextColumnsCount;
+
+            final int columnEnd;
+            final long max;
+            final long min;
+
+            if (isInner && cached >= 0 && cached < columnsCount) {
+                columnEnd = columnsEnd[cached];
+                max = columnsMax[cached];
+                min = columnsMin[cached];
+            } else {
+                columnEnd = column == last ? end : Math.min(end, countLess(xValues, boundary(column + 1)));
+
+                if (columnEnd > columnStart) {
+                    max = index.getMax(columnStart, columnEnd);
+                    min = index.getMin(columnStart, columnEnd);
+                } else {
+                    max = Long.MIN_VALUE;
+                    min = Long.MAX_VALUE;
+                }
+            }
+
+            if (isInner) {
+                nextColumnsEnd[next] = columnEnd;
+                nextColumnsMax[next] = max;
+                nextColumnsMin[next] = min;
+            }
+
+            if (columnEnd > columnStart) {
+                final float x = centerX(xValues, columnStart, columnEnd - 1, xMath);
+
+                prevY = addColumn(line, x, max, min, prevY, yMath);
+
+                columnStart = columnEnd;
+            }
+        }
+
+        swapColumns(nextFirstColumn, nextColumnsCount);
+
+        line.lineTo(xMath.valueToPixel(xValues.get(end - 1)), yMath.valueToPixel(index.getLevelMax(0, end - 1)));
+    }
+
+    /**
+     * @return column which holds the x value
+     */
+    private int columnOf(long x) {
+        int column = (int) Math.floor((x - origin) / columnWidth);
+
+        //fix rounding errors of the division, so the value is inside the column bounds
+        while (boundary(column) > x) {
+            column--;
+        }
+        while (boundary(column + 1) <= x) {
+            column++;
+        }
+
+        return column;
+    }
+
+    /**
+     * @return first x value of the column
+     */
+    private long boundary(int column) {
+        return origin + (long) Math.ceil(column * columnWidth);
+    }
+
+    /**
+     * @return number of points with x value less than the provided one
+     */
+    private static int countLess(@NonNull Column xValues, long value) {
+        final int floor = SortedColumns.floorIndex(xValues, value - 1);
+
+        return floor < 0 || xValues.get(floor) >= value ? 0 : floor + 1;
+    }
+
+    private void ensureNextCapacity(int count) {
+        if (nextColumnsEnd.length < count) {
+            nextColumnsEnd = new int[count];
+            nextColumnsMax = new long[count];
+            nextColumnsMin = new long[count];
+        }
+    }
+
+    private void swapColumns(int first, int count) {
+        final int[] end = columnsEnd;
+        final long[] max = columnsMax;
+        final long[] min = columnsMin;
+
+        columnsEnd = nextColumnsEnd;
+        columnsMax = nextColumnsMax;
+        columnsMin = nextColumnsMin;
+        nextColumnsEnd = end;
+        nextColumnsMax = max;
+        nextColumnsMin = min;
+
+        firstColumn = first;
+        columnsCount = count;
+    }
+
+    /**
+     * @param xValues x axis values
+     * @param first   first point of the column (inclusive)
+     * @param last    last point of the column (inclusive)
+     * @param xMath   x axis math
+     * @return x pixel position of the middle between the first and the last column points
+     */
+    private static float centerX(@NonNull Column xValues, int first, int last, @NonNull AxisMath xMath) {
+        final long firstValue = xValues.get(first);
+
+        return xMath.valueToPixel(firstValue + (xValues.get(last) - firstValue) / 2);
+    }
+
+    /**
+     * Add vertices of the column to the line
+     *
+     * @param x x pixel position of the column
+     * @return y pixel position of the last added vertex
+     */
+    private static float addColumn(@NonNull LineShape line,
+                                   float x,
+                                   long max,
+                                   long min,
+                                   float prevY,
+                                   @NonNull AxisMath yMath) {
+        final float maxY = yMath.valueToPixel(max);
+        final float minY = yMath.valueToPixel(min);
+
+        //start from the value which is closer to the previous one
+        if (Math.abs(maxY - prevY) < Math.abs(minY - prevY)) {
+            line.lineTo(x, maxY);
+            line.lineTo(x, minY);
+            return minY;
+        } else {
+            line.lineTo(x, minY);
+            line.lineTo(x, maxY);
+            return maxY;
+        }
+    }
+}
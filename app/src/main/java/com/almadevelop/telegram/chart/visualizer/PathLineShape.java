@@ -0,0 +1,61 @@
+package com.almadevelop.telegram.chart.visualizer;
+
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.support.annotation.NonNull;
+
+/**
+ * Line stored as {@link Path}
+ */
+final class PathLineShape implements LineShape {
+    private final Path path = new Path();
+    //transformed path to draw. Reused between frames
+    private final Path drawPath = new Path();
+    private int pointsCount;
+
+    @NonNull
+    @Override
+    public LineRenderer getRenderer() {
+        return LineRenderer.PATH;
+    }
+
+    @Override
+    public void reset() {
+        path.reset();
+        pointsCount = 0;
+    }
+
+    @Override
+    public void moveTo(float x, float y) {
+        path.moveTo(x, y);
+        pointsCount++;
+    }
+
+    @Override
+    public void lineTo(float x, float y) {
+        path.lineTo(x, y);
+        pointsCount++;
+    }
+
+    @Override
+    public int getPointsCount() {
+        return pointsCount;
+    }
+
+    @Override
+    public void transform(@NonNull Matrix matrix) {
+        path.transform(matrix);
+    }
+
+    @Override
+    public void draw(@NonNull Canvas canvas, @NonNull Paint paint, @NonNull Matrix matrix) {
+        if (matrix.isIdentity()) {
+            canvas.drawPath(path, paint);
+        } else {
+            path.transform(matrix, drawPath);
+            canvas.drawPath(drawPath, paint);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.almadevelop.telegram.chart.visualizer;
+
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Line stored as segment end points and drawn by {@link Canvas#drawLines(float[], int, int, Paint)}.
+ * The buffer grows to the biggest line and is refilled in place after {@link #reset()}
+ */
+final class SegmentsLineShape implements LineShape {
+    //x0, y0, x1, y1 of each segment
+    @NonNull
+    private float[] segments = new float[64];
+    //number of used floats
+    private int count;
+    //transformed segments to draw. Reused between frames
+    @NonNull
+    private float[] drawSegments = new float[0];
+
+    //last point of the line
+    private final float[] lastPoint = new float[2];
+    private int pointsCount;
+
+    @NonNull
+    @Override
+    public LineRenderer getRenderer() {
+        return LineRenderer.SEGMENTS;
+    }
+
+    @Override
+    public void reset() {
+        count = 0;
+        pointsCount = 0;
+    }
+
+    @Override
+    public void moveTo(float x, float y) {
+        lastPoint[0] = x;
+        lastPoint[1] = y;
+
+        pointsCount++;
+    }
+
+    @Override
+    public void lineTo(float x, float y) {
+        if (count + 4 > segments.length) {
+            segments = Arrays.copyOf(segments, segments.length * 2);
+        }
+
+        segments[count++] = lastPoint[0];
+        segments[count++] = lastPoint[1];
+        segments[count++] = x;
+        segments[count++] = y;
+
+        lastPoint[0] = x;
+        lastPoint[1] = y;
+
+        pointsCount++;
+    }
+
+    @Override
+    public int getPointsCount() {
+        return pointsCount;
+    }
+
+    @Override
+    public void transform(@NonNull Matrix matrix) {
+        matrix.mapPoints(segments, 0, segments, 0, count >> 1);
+        matrix.mapPoints(lastPoint);
+    }
+
+    @Override
+    public void draw(@NonNull Canvas canvas, @NonNull Paint paint, @NonNull Matrix matrix) {
+        if (count == 0) {
+            return;
+        }
+
+        if (matrix.isIdentity()) {
+            canvas.drawLines(segments, 0, count, paint);
+        } else {
+            if (drawSegments.length < count) {
+                drawSegments = new float[segments.length];
+            }
+
+            matrix.mapPoints(drawSegments, 0, segments, 0, count >> 1);
+            canvas.drawLines(drawSegments, 0, count, paint);
+        }
+    }
+}
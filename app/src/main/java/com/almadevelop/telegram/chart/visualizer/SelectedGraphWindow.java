@@ -3,40 +3,62 @@ package com.almadevelop.telegram.chart.visualizer;
 import android.graphics.RectF;
 import android.support.annotation.NonNull;
 
+import com.almadevelop.telegram.chart.graph.Column;
+
 import java.util.Arrays;
 
 /**
- * Describes selected graph's window
+ * Describes selected graph's window.
+ * Instances are reused by the controller, so the window is changed after each calculation
  */
 class SelectedGraphWindow {
     @NonNull
     private final GraphLinePath[] lines;
     @NonNull
-    private final RectF bounds;
+    private final RectF bounds = new RectF();
     @NonNull
-    private final long[] xValues;
+    private final Column xValues;
     @NonNull
-    private final long[][] yValues;
-    private final long yTopExtremum, yLowExtremum;
+    private final Column[] yValues;
+    private long xTopExtremum, xLowExtremum;
+    private long yTopExtremum, yLowExtremum;
 
     /**
-     * @param lines       calculated line segments
-     * @param bounds  bounds of the calculated segments
-     * @param xValues     x values for selected window
-     * @param yValues     y values for selected window
-     * @param yTopExtremum Y axis top value of the segment
-     * @param yLowExtremum Y axis low value of the segment
+     * @param lines   line segments. Filled by the owner
+     * @param xValues x values for selected window. Views of the graph columns
+     * @param yValues y values for selected window. Views of the graph columns
      */
     SelectedGraphWindow(@NonNull GraphLinePath[] lines,
-                        @NonNull RectF bounds,
-                        @NonNull long[] xValues,
-                        @NonNull long[][] yValues,
-                        long yTopExtremum,
-                        long yLowExtremum) {
+                        @NonNull Column xValues,
+                        @NonNull Column[] yValues) {
         this.lines = lines;
-        this.bounds = bounds;
         this.xValues = xValues;
         this.yValues = yValues;
+    }
+
+    /**
+     * Set calculated values of the window
+     *
+     * @param left         left bound of the calculated segments
+     * @param top          top bound of the calculated segments
+     * @param right        right bound of the calculated segments
+     * @param bottom       bottom bound of the calculated segments
+     * @param xTopExtremum X axis value of the selection end. Points can be outside of the selection
+     * @param xLowExtremum X axis value of the selection start
+     * @param yTopExtremum Y axis top value of the segment
+     * @param yLowExtremum Y axis low value of the segment
+     */
+    void set(float left,
+             float top,
+             float right,
+             float bottom,
+             long xTopExtremum,
+             long xLowExtremum,
+             long yTopExtremum,
+             long yLowExtremum) {
+        this.bounds.set(left, top, right, bottom);
+        this.xTopExtremum = xTopExtremum;
+        this.xLowExtremum = xLowExtremum;
         this.yTopExtremum = yTopExtremum;
         this.yLowExtremum = yLowExtremum;
     }
@@ -52,20 +74,20 @@ class SelectedGraphWindow {
     }
 
     @NonNull
-    long[] getxValues() {
+    Column getxValues() {
         return xValues;
     }
 
     long getxTopExtremum() {
-        return xValues[xValues.length - 1];
+        return xTopExtremum;
     }
 
     long getxLowExtremum() {
-        return xValues[0];
+        return xLowExtremum;
     }
 
     @NonNull
-    long[][] getyValues() {
+    Column[] getyValues() {
         return yValues;
     }
 
@@ -92,6 +114,12 @@ class SelectedGraphWindow {
 
         SelectedGraphWindow that = (SelectedGraphWindow) o;
 
+        if (xTopExtremum != that.xTopExtremum) {
+            return false;
+        }
+        if (xLowExtremum != that.xLowExtremum) {
+            return false;
+        }
         if (yTopExtremum != that.yTopExtremum) {
             return false;
         }
@@ -105,18 +133,20 @@ class SelectedGraphWindow {
         if (!bounds.equals(that.bounds)) {
             return false;
         }
-        if (!Arrays.equals(xValues, that.xValues)) {
+        if (!xValues.equals(that.xValues)) {
             return false;
         }
-        return Arrays.deepEquals(yValues, that.yValues);
+        return Arrays.equals(yValues, that.yValues);
     }
 
     @Override
     public int hashCode() {
         int result = Arrays.hashCode(lines);
         result = 31 * result + bounds.hashCode();
-        result = 31 * result + Arrays.hashCode(xValues);
-        result = 31 * result + Arrays.deepHashCode(yValues);
+        result = 31 * result + xValues.hashCode();
+        result = 31 * result + Arrays.hashCode(yValues);
+        result = 31 * result + (int) (xTopExtremum ^ (xTopExtremum >>> 32));
+        result = 31 * result + (int) (xLowExtremum ^ (xLowExtremum >>> 32));
         result = 31 * result + (int) (yTopExtremum ^ (yTopExtremum >>> 32));
         result = 31 * result + (int) (yLowExtremum ^ (yLowExtremum >>> 32));
         return result;
@@ -127,8 +157,10 @@ class SelectedGraphWindow {
         return "SelectedGraphWindow{" +
                 "lines=" + Arrays.toString(lines) +
                 ", bounds=" + bounds +
-                ", xValues=" + Arrays.toString(xValues) +
+                ", xValues=" + xValues +
                 ", yValues=" + Arrays.toString(yValues) +
+                ", xTopExtremum=" + xTopExtremum +
+                ", xLowExtremum=" + xLowExtremum +
                 ", yTopExtremum=" + yTopExtremum +
                 ", yLowExtremum=" + yLowExtremum +
                 '}';
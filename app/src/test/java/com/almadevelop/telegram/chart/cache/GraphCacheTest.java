@@ -0,0 +1,165 @@
+package com.almadevelop.telegram.chart.cache;
+
+import com.almadevelop.telegram.chart.graph.Graph;
+import com.almadevelop.telegram.chart.graph.GraphAxis;
+import com.almadevelop.telegram.chart.graph.GraphLine;
+import com.almadevelop.telegram.chart.graph.LongBufferColumn;
+import com.almadevelop.telegram.chart.graph.LongColumn;
+import com.almadevelop.telegram.chart.graph.RangeExtremumIndex;
+import com.almadevelop.telegram.chart.graph.TimestampColumn;
+
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GraphCacheTest {
+    private static final String HASH = "0123456789abcdef";
+
+    @Test
+    public void read_returnsWrittenGraph() throws IOException {
+        final GraphCache cache = new GraphCache(newDir());
+
+        cache.write(HASH, 0, graph());
+
+        final Graph graph = cache.read(HASH, 0);
+
+        assertEquals(3, graph.size());
+        assertEquals(2, graph.linesCount());
+        assertEquals(30L, graph.getXAxis().getData().get(2));
+        assertEquals("y1", graph.getLine(1).getLabel());
+        assertEquals(-5L, graph.getLine(1).getData().get(0));
+    }
+
+    @Test
+    public void read_mapsColumnsAndIndexes() throws IOException {
+        final Random random = new Random(1);
+        final int size = 1000;
+
+        final long[] x = new long[size];
+        final long[] y = new long[size];
+
+        long value = 1_542_412_800_000L;
+
+        for (int i = 0; i < size; i++) {
+            x[i] = value;
+            y[i] = random.nextInt(2001) - 1000;
+            //uneven steps, so the axis is stored by its delta encoding
+            value += 86_400_000L * (1 + random.nextInt(3));
+        }
+
+        final GraphAxis xAxis = new GraphAxis(TimestampColumn.compress(LongColumn.wrap(x)), x[size - 1], x[0]);
+        final GraphLine line = new GraphLine("y0", "First", LongColumn.wrap(y), 1000L, -1000L, 0xFF00FF00);
+
+        final GraphCache cache = new GraphCache(newDir());
+        cache.write(HASH, 0, new Graph(xAxis, Arrays.asList(line)));
+
+        final Graph graph = cache.read(HASH, 0);
+        final GraphLine readLine = graph.getLine(0);
+
+        //values are not copied to the heap
+        assertTrue(readLine.getData() instanceof LongBufferColumn);
+
+        final RangeExtremumIndex index = line.getExtremumIndex();
+        final RangeExtremumIndex readIndex = readLine.getExtremumIndex();
+
+        assertEquals(index.levelsCount(), readIndex.levelsCount());
+
+        for (int i = 0; i < size; i++) {
+            assertEquals("X at " + i, x[i], graph.getXAxis().getData().get(i));
+            assertEquals("Y at " + i, y[i], readLine.getData().get(i));
+        }
+
+        for (int start = 0; start < size; start += 37) {
+            for (int end = start; end <= size; end += 53) {
+                assertEquals("Max of " + start + ".." + end, index.getMax(start, end), readIndex.getMax(start, end));
+                assertEquals("Min of " + start + ".." + end, index.getMin(start, end), readIndex.getMin(start, end));
+            }
+        }
+    }
+
+    @Test
+    public void read_treatsHugePointsCountAsMiss() throws IOException {
+        final File dir = newDir();
+
+        writeHeader(dir, Integer.MAX_VALUE, 1);
+
+        assertNull(new GraphCache(dir).read(HASH, 0));
+        assertFalse(cacheFile(dir).exists());
+    }
+
+    @Test
+    public void read_treatsHugeLinesCountAsMiss() throws IOException {
+        final File dir = newDir();
+
+        writeHeader(dir, 3, Integer.MAX_VALUE);
+
+        assertNull(new GraphCache(dir).read(HASH, 0));
+        assertFalse(cacheFile(dir).exists());
+    }
+
+    @Test
+    public void read_treatsTruncatedFileAsMiss() throws IOException {
+        final File dir = newDir();
+        final GraphCache cache = new GraphCache(dir);
+
+        cache.write(HASH, 0, graph());
+
+        final RandomAccessFile file = new RandomAccessFile(cacheFile(dir), "rw");
+
+        try {
+            //cut the last line column
+            file.setLength(file.length() - 8);
+        } finally {
+            file.close();
+        }
+
+        assertNull(cache.read(HASH, 0));
+        assertFalse(cacheFile(dir).exists());
+    }
+
+    private static Graph graph() {
+        final GraphAxis xAxis = new GraphAxis(LongColumn.wrap(new long[]{10L, 20L, 30L}), 30L, 10L);
+
+        return new Graph(xAxis, Arrays.asList(
+                new GraphLine("y0", "First", LongColumn.wrap(new long[]{1L, 2L, 3L}), 3L, 1L, 0xFF00FF00),
+                new GraphLine("y1", "Second", LongColumn.wrap(new long[]{-5L, 0L, 5L}), 5L, -5L, 0xFFFF0000)));
+    }
+
+    /**
+     * Write a cache file with the valid format header and the provided counts only
+     */
+    private static void writeHeader(File dir, int pointsCount, int linesCount) throws IOException {
+        final DataOutputStream out = new DataOutputStream(new FileOutputStream(cacheFile(dir)));
+
+        try {
+            //magic "GRPH" and version
+            out.writeInt(0x47525048);
+            out.writeInt(2);
+            out.writeInt(pointsCount);
+            out.writeInt(linesCount);
+            out.writeLong(30L);
+            out.writeLong(10L);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static File cacheFile(File dir) {
+        return new File(dir, "graph_" + HASH + "_0.bin");
+    }
+
+    private static File newDir() throws IOException {
+        final File dir = Files.createTempDirectory("graph_cache").toFile();
+        dir.deleteOnExit();
+        return dir;
+    }
+}
@@ -0,0 +1,195 @@
+package com.almadevelop.telegram.chart.graph;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TimestampColumnTest {
+    private static final long DAY = 24L * 60L * 60L * 1000L;
+
+    @Test
+    public void compress_storesConstantStepWithoutDeltas() {
+        final long[] values = new long[200];
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1_542_412_800_000L + DAY * i;
+        }
+
+        final TimestampColumn column = TimestampColumn.compress(LongColumn.wrap(values));
+
+        assertTrue(column.hasConstantStep());
+        assertRoundTrip(values, column);
+    }
+
+    @Test
+    public void compress_keepsEmptyAndSingleValueColumns() {
+        assertRoundTrip(new long[0], TimestampColumn.compress(LongColumn.wrap(new long[0])));
+        assertRoundTrip(new long[]{Long.MIN_VALUE}, TimestampColumn.compress(LongColumn.wrap(new long[]{Long.MIN_VALUE})));
+    }
+
+    @Test
+    public void compress_keepsNegativeAndLargeDeltas() {
+        final long[] values = new long[]{
+                0L,
+                -1L,
+                1_000_000_000_000L,
+                1_000_000_000_001L,
+                -4_000_000_000_000_000_000L,
+                4_000_000_000_000_000_000L,
+                4_000_000_000_000_000_000L,
+                -3L,
+                Long.MAX_VALUE / 2,
+                Long.MIN_VALUE / 2,
+                7L
+        };
+
+        final TimestampColumn column = TimestampColumn.compress(LongColumn.wrap(values));
+
+        assertFalse(column.hasConstantStep());
+        assertRoundTrip(values, column);
+    }
+
+    @Test
+    public void get_decodesValuesAroundBlockBoundaries() {
+        final long[] values = unevenValues(200, 1);
+        final TimestampColumn column = TimestampColumn.compress(LongColumn.wrap(values));
+
+        assertFalse(column.hasConstantStep());
+
+        for (int index : new int[]{0, 1, 62, 63, 64, 65, 127, 128, 129, 199}) {
+            assertEquals("Index " + index, values[index], column.get(index));
+        }
+    }
+
+    @Test
+    public void copyTo_decodesRangesAcrossCheckpoints() {
+        final long[] values = unevenValues(300, 2);
+        final TimestampColumn column = TimestampColumn.compress(LongColumn.wrap(values));
+
+        final int[][] ranges = new int[][]{
+                {0, 300},
+                {63, 2},
+                {60, 10},
+                {64, 1},
+                {65, 64},
+                {1, 200},
+                {127, 130},
+                {299, 1},
+                {150, 0}
+        };
+
+        for (int[] range : ranges) {
+            final int start = range[0];
+            final int length = range[1];
+
+            //destination offset is kept
+            final long[] dst = new long[length + 3];
+            column.copyTo(start, dst, 3, length);
+
+            for (int i = 0; i < length; i++) {
+                assertEquals("Range " + start + "+" + length + ", position " + i, values[start + i], dst[3 + i]);
+            }
+        }
+    }
+
+    @Test
+    public void read_returnsWrittenColumn() throws IOException {
+        final long[] constant = new long[]{10L, 20L, 30L, 40L};
+        final long[] uneven = unevenValues(300, 5);
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+
+        //odd offset to check alignment of the encoded arrays
+        out.writeByte(7);
+        TimestampColumn.compress(LongColumn.wrap(constant)).writeTo(out);
+        TimestampColumn.compress(LongColumn.wrap(uneven)).writeTo(out);
+        out.close();
+
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        buffer.get();
+
+        final TimestampColumn readConstant = TimestampColumn.read(buffer);
+        final TimestampColumn readUneven = TimestampColumn.read(buffer);
+
+        assertEquals(0, buffer.remaining());
+
+        assertTrue(readConstant.hasConstantStep());
+        assertRoundTrip(constant, readConstant);
+
+        assertFalse(readUneven.hasConstantStep());
+        assertRoundTrip(uneven, readUneven);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void read_failsOnTruncatedEncoding() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+
+        TimestampColumn.compress(LongColumn.wrap(unevenValues(300, 6))).writeTo(out);
+        out.close();
+
+        final byte[] written = bytes.toByteArray();
+
+        TimestampColumn.read(ByteBuffer.wrap(written, 0, written.length - 1).slice());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void get_failsOutOfBounds() {
+        TimestampColumn.compress(LongColumn.wrap(unevenValues(65, 3))).get(65);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void copyTo_failsOutOfBounds() {
+        TimestampColumn.compress(LongColumn.wrap(unevenValues(65, 4))).copyTo(60, new long[10], 0, 6);
+    }
+
+    /**
+     * Timestamps with mostly daily step, gaps and steps back
+     */
+    private static long[] unevenValues(int size, long seed) {
+        final Random random = new Random(seed);
+        final long[] values = new long[size];
+
+        long value = 1_542_412_800_000L;
+
+        for (int i = 0; i < size; i++) {
+            values[i] = value;
+
+            switch (random.nextInt(4)) {
+                case 0:
+                    //gap
+                    value += DAY * (2 + random.nextInt(30));
+                    break;
+                case 1:
+                    //step back
+                    value -= random.nextInt(1_000_000);
+                    break;
+                default:
+                    value += DAY;
+                    break;
+            }
+        }
+
+        return values;
+    }
+
+    private static void assertRoundTrip(long[] expected, TimestampColumn column) {
+        assertEquals(expected.length, column.size());
+
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("Index " + i, expected[i], column.get(i));
+        }
+
+        final long[] copy = new long[expected.length];
+        column.copyTo(0, copy, 0, copy.length);
+
+        assertArrayEquals(expected, copy);
+    }
+}
@@ -0,0 +1,247 @@
+package com.almadevelop.telegram.chart.parser;
+
+import android.util.JsonToken;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.*;
+
+public class ChartJsonTokenizerTest {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Test
+    public void nextLong_readsLongBounds() throws IOException {
+        final ChartJsonTokenizer tokenizer = tokenizer("[-9223372036854775808, 9223372036854775807, 0, -0, 42]");
+
+        tokenizer.beginArray();
+        assertEquals(Long.MIN_VALUE, tokenizer.nextLong());
+        assertEquals(Long.MAX_VALUE, tokenizer.nextLong());
+        assertEquals(0L, tokenizer.nextLong());
+        assertEquals(0L, tokenizer.nextLong());
+        assertEquals(42L, tokenizer.nextLong());
+        tokenizer.endArray();
+
+        assertSame(JsonToken.END_DOCUMENT, tokenizer.peek());
+    }
+
+    @Test
+    public void nextLong_readsNumberAtTheEndOfInput() throws IOException {
+        assertEquals(-123L, tokenizer("-123").nextLong());
+    }
+
+    @Test
+    public void nextLong_readsNumbersAcrossStreamBuffers() throws IOException {
+        final StringBuilder json = new StringBuilder("[");
+
+        //more than one stream buffer of numbers
+        for (int i = 0; i < 5000; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(1_500_000_000_000L + i);
+        }
+
+        json.append(']');
+
+        final ChartJsonTokenizer tokenizer = new ChartJsonTokenizer(new ByteArrayInputStream(json.toString().getBytes(UTF_8)));
+
+        tokenizer.beginArray();
+
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(1_500_000_000_000L + i, tokenizer.nextLong());
+        }
+
+        tokenizer.endArray();
+    }
+
+    @Test(expected = ChartJsonTokenizer.UnsupportedInputException.class)
+    public void nextLong_failsAboveMaxValue() throws IOException {
+        tokenizer("9223372036854775808").nextLong();
+    }
+
+    @Test(expected = ChartJsonTokenizer.UnsupportedInputException.class)
+    public void nextLong_failsBelowMinValue() throws IOException {
+        tokenizer("-9223372036854775809").nextLong();
+    }
+
+    @Test(expected = ChartJsonTokenizer.UnsupportedInputException.class)
+    public void nextLong_failsOnLongOverflow() throws IOException {
+        tokenizer("123456789012345678901234567890").nextLong();
+    }
+
+    @Test(expected = ChartJsonTokenizer.UnsupportedInputException.class)
+    public void nextLong_failsOnFraction() throws IOException {
+        firstArrayLong("[1.5]");
+    }
+
+    @Test(expected = ChartJsonTokenizer.UnsupportedInputException.class)
+    public void nextLong_failsOnExponent() throws IOException {
+        firstArrayLong("[1e3]");
+    }
+
+    @Test(expected = ChartJsonTokenizer.UnsupportedInputException.class)
+    public void nextLong_failsOnUpperCaseExponent() throws IOException {
+        firstArrayLong("[1E3]");
+    }
+
+    @Test(expected = IllegalChartJsonFormat.class)
+    public void nextLong_failsWithoutDigits() throws IOException {
+        firstArrayLong("[-]");
+    }
+
+    @Test
+    public void nextString_readsEscapes() throws IOException {
+        final ChartJsonTokenizer tokenizer = tokenizer("[\"a\\\"b\\\\c\\/d\\b\\f\\n\\r\\t\", \"\"]");
+
+        tokenizer.beginArray();
+        assertEquals("a\"b\\c/d\b\f\n\r\t", tokenizer.nextString());
+        assertEquals("", tokenizer.nextString());
+        tokenizer.endArray();
+    }
+
+    @Test
+    public void nextString_readsUtf8() throws IOException {
+        final String value = "\u041f\u0440\u0438\u0432\u0435\u0442, \u56fe\u8868";
+
+        assertEquals(value, tokenizer("\"" + value + "\"").nextString());
+    }
+
+    @Test
+    public void nextString_readsLongString() throws IOException {
+        final StringBuilder value = new StringBuilder();
+
+        //longer than the initial string buffer
+        for (int i = 0; i < 1000; i++) {
+            value.append((char) ('a' + i % 26));
+        }
+
+        assertEquals(value.toString(), tokenizer("\"" + value + "\"").nextString());
+    }
+
+    @Test(expected = ChartJsonTokenizer.UnsupportedInputException.class)
+    public void nextString_failsOnUnicodeEscape() throws IOException {
+        tokenizer("\"\\u0041\"").nextString();
+    }
+
+    @Test(expected = ChartJsonTokenizer.UnsupportedInputException.class)
+    public void nextName_failsOnUnicodeEscape() throws IOException {
+        final ChartJsonTokenizer tokenizer = tokenizer("{\"\\u0041\": 1}");
+
+        tokenizer.beginObject();
+        tokenizer.nextName();
+    }
+
+    @Test(expected = IllegalChartJsonFormat.class)
+    public void nextString_failsOnInvalidEscape() throws IOException {
+        tokenizer("\"\\x\"").nextString();
+    }
+
+    @Test(expected = IllegalChartJsonFormat.class)
+    public void nextString_failsOnUnterminatedString() throws IOException {
+        tokenizer("\"abc").nextString();
+    }
+
+    @Test
+    public void readsObjectWithLiterals() throws IOException {
+        final ChartJsonTokenizer tokenizer = tokenizer(" { \"a\" : true , \"b\":false,\"c\" :null, \"d\": [ ] } ");
+
+        tokenizer.beginObject();
+
+        assertEquals("a", tokenizer.nextName());
+        assertSame(JsonToken.BOOLEAN, tokenizer.peek());
+        tokenizer.skipValue();
+
+        assertEquals("b", tokenizer.nextName());
+        assertSame(JsonToken.BOOLEAN, tokenizer.peek());
+        tokenizer.skipValue();
+
+        assertEquals("c", tokenizer.nextName());
+        assertSame(JsonToken.NULL, tokenizer.peek());
+        tokenizer.skipValue();
+
+        assertEquals("d", tokenizer.nextName());
+        tokenizer.beginArray();
+        assertFalse(tokenizer.hasNext());
+        tokenizer.endArray();
+
+        assertFalse(tokenizer.hasNext());
+        tokenizer.endObject();
+
+        assertSame(JsonToken.END_DOCUMENT, tokenizer.peek());
+    }
+
+    @Test
+    public void skipValue_skipsNestedValues() throws IOException {
+        final ChartJsonTokenizer tokenizer = tokenizer("{" +
+                "\"skip\": {\"a\": [1, [2, {\"b\": \"]}\\\"\"}], -3.5e7], \"c\": {}, \"d\": [[], [[]]], \"e\": \"\\u0041\"}," +
+                "\"keep\": 7" +
+                "}");
+
+        tokenizer.beginObject();
+
+        assertEquals("skip", tokenizer.nextName());
+        tokenizer.skipValue();
+
+        assertEquals("keep", tokenizer.nextName());
+        assertEquals(7L, tokenizer.nextLong());
+
+        tokenizer.endObject();
+
+        assertSame(JsonToken.END_DOCUMENT, tokenizer.peek());
+    }
+
+    @Test
+    public void skipValue_skipsNamesAndScalars() throws IOException {
+        final ChartJsonTokenizer tokenizer = tokenizer("{\"a\": 1.25, \"b\": \"x\", \"c\": 3}");
+
+        tokenizer.beginObject();
+
+        //name and its value
+        tokenizer.skipValue();
+        tokenizer.skipValue();
+
+        assertEquals("b", tokenizer.nextName());
+        tokenizer.skipValue();
+
+        assertEquals("c", tokenizer.nextName());
+        assertEquals(3L, tokenizer.nextLong());
+
+        tokenizer.endObject();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void skipValue_failsAtTheEndOfScope() throws IOException {
+        final ChartJsonTokenizer tokenizer = tokenizer("[]");
+
+        tokenizer.beginArray();
+        tokenizer.skipValue();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void nextLong_failsOnString() throws IOException {
+        tokenizer("\"1\"").nextLong();
+    }
+
+    private static long firstArrayLong(String json) throws IOException {
+        final ChartJsonTokenizer tokenizer = tokenizer(json);
+
+        tokenizer.beginArray();
+        return tokenizer.nextLong();
+    }
+
+    private static ChartJsonTokenizer tokenizer(String json) {
+        final byte[] bytes = json.getBytes(UTF_8);
+
+        //tokenizer reads the range only
+        final byte[] data = new byte[bytes.length + 2];
+        data[0] = '[';
+        System.arraycopy(bytes, 0, data, 1, bytes.length);
+        data[data.length - 1] = ']';
+
+        return new ChartJsonTokenizer(data, 1, bytes.length);
+    }
+}
@@ -0,0 +1,239 @@
+package com.almadevelop.telegram.chart.visualizer;
+
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.support.annotation.NonNull;
+
+import com.almadevelop.telegram.chart.graph.LongColumn;
+import com.almadevelop.telegram.chart.graph.RangeExtremumIndex;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MinMaxDecimatorTest {
+    private static final long DAY = 24L * 60L * 60L * 1000L;
+
+    @Test
+    public void build_drawsMinMaxOfPixelColumns() {
+        final Random random = new Random(1);
+        final long[] x = unevenValues(random, 5000);
+        final long[] y = randomValues(random, x.length);
+
+        final AxisMath xMath = axis(x[0], x[x.length - 1], 300.0f);
+        final AxisMath yMath = axis(-1000, 1000, 200.0f);
+
+        final RecordingShape line = new RecordingShape();
+        new MinMaxDecimator(new RangeExtremumIndex(LongColumn.wrap(y))).build(line,
+                0,
+                x.length,
+                xMath.pixelsToValues(1.0f),
+                LongColumn.wrap(x),
+                xMath,
+                yMath);
+
+        //line ends are the first and the last points
+        assertEquals(xMath.valueToPixel(x[0]), line.x(0), 0.0f);
+        assertEquals(xMath.valueToPixel(x[x.length - 1]), line.x(line.count - 1), 0.0f);
+
+        //columns are vertical pairs of vertices between the line ends
+        assertEquals(0, (line.count - 2) % 2);
+
+        //expected columns: points grouped by [x0 + ceil(k * width), x0 + ceil((k + 1) * width))
+        final double columnWidth = xMath.pixelsToValues(1.0f);
+
+        int vertex = 1;
+        int columnStart = 0;
+
+        while (columnStart < x.length) {
+            int column = (int) Math.floor((x[columnStart] - x[0]) / columnWidth);
+
+            while (x[0] + (long) Math.ceil(column * columnWidth) > x[columnStart]) {
+                column--;
+            }
+            while (x[0] + (long) Math.ceil((column + 1) * columnWidth) <= x[columnStart]) {
+                column++;
+            }
+
+            final long columnEndX = x[0] + (long) Math.ceil((column + 1) * columnWidth);
+
+            int columnEnd = columnStart;
+            long max = Long.MIN_VALUE;
+            long min = Long.MAX_VALUE;
+
+            while (columnEnd < x.length && x[columnEnd] < columnEndX) {
+                max = Math.max(max, y[columnEnd]);
+                min = Math.min(min, y[columnEnd]);
+                columnEnd++;
+            }
+
+            final float columnX = xMath.valueToPixel(x[columnStart] + (x[columnEnd - 1] - x[columnStart]) / 2);
+
+            assertEquals("Column at " + columnStart, columnX, line.x(vertex), 0.0f);
+            assertEquals("Column at " + columnStart, columnX, line.x(vertex + 1), 0.0f);
+            assertEquals("Column at " + columnStart, yMath.valueToPixel(max), Math.max(line.y(vertex), line.y(vertex + 1)), 0.0f);
+            assertEquals("Column at " + columnStart, yMath.valueToPixel(min), Math.min(line.y(vertex), line.y(vertex + 1)), 0.0f);
+
+            vertex += 2;
+            columnStart = columnEnd;
+        }
+
+        assertEquals(line.count - 1, vertex);
+    }
+
+    @Test
+    public void build_doesNotDrawColumnsInsideGaps() {
+        //two dense parts with a wide gap between them
+        final long[] x = new long[2000];
+
+        for (int i = 0; i < x.length; i++) {
+            x[i] = i < 1000 ? i : 1_000_000 + i;
+        }
+
+        final long[] y = randomValues(new Random(2), x.length);
+
+        final AxisMath xMath = axis(x[0], x[x.length - 1], 100.0f);
+        final AxisMath yMath = axis(-1000, 1000, 200.0f);
+
+        final RecordingShape line = new RecordingShape();
+        new MinMaxDecimator(new RangeExtremumIndex(LongColumn.wrap(y))).build(line,
+                0,
+                x.length,
+                xMath.pixelsToValues(1.0f),
+                LongColumn.wrap(x),
+                xMath,
+                yMath);
+
+        final float gapStart = xMath.valueToPixel(x[999]);
+        final float gapEnd = xMath.valueToPixel(x[1000]);
+
+        for (int vertex = 0; vertex < line.count; vertex++) {
+            //gap is wider than a pixel, so columns are at its edges only
+            assertFalse("Vertex inside the gap at " + line.x(vertex), line.x(vertex) > gapStart + 1.0f && line.x(vertex) < gapEnd - 1.0f);
+        }
+    }
+
+    @Test
+    public void build_reusesColumnsOfMovedRange() {
+        final Random random = new Random(3);
+        final long[] x = unevenValues(random, 20000);
+        final long[] y = randomValues(random, x.length);
+
+        final AxisMath xMath = axis(x[0], x[x.length - 1], 1000.0f);
+        final AxisMath yMath = axis(-1000, 1000, 200.0f);
+        final double columnWidth = xMath.pixelsToValues(0.1f);
+
+        final RangeExtremumIndex index = new RangeExtremumIndex(LongColumn.wrap(y));
+        final MinMaxDecimator moved = new MinMaxDecimator(index);
+
+        for (int start = 0; start < 10000; start += 777) {
+            final int end = start + 5000;
+
+            final RecordingShape cached = new RecordingShape();
+            moved.build(cached, start, end, columnWidth, LongColumn.wrap(x), xMath, yMath);
+
+            final RecordingShape fresh = new RecordingShape();
+            new MinMaxDecimator(index).build(fresh, start, end, columnWidth, LongColumn.wrap(x), xMath, yMath);
+
+            assertEquals("Start " + start, fresh.count, cached.count);
+            assertTrue("Start " + start, Arrays.equals(fresh.points, cached.points));
+        }
+    }
+
+    private static AxisMath axis(long low, long top, float length) {
+        final AxisMath math = new AxisMath();
+        math.setSize(0.0f, length);
+        math.setValues(top, low);
+        return math;
+    }
+
+    /**
+     * Timestamps with mostly daily step and gaps
+     */
+    private static long[] unevenValues(Random random, int size) {
+        final long[] values = new long[size];
+
+        long value = 1_542_412_800_000L;
+
+        for (int i = 0; i < size; i++) {
+            values[i] = value;
+            value += random.nextInt(10) == 0 ? DAY * (2 + random.nextInt(60)) : DAY;
+        }
+
+        return values;
+    }
+
+    private static long[] randomValues(Random random, int size) {
+        final long[] values = new long[size];
+
+        for (int i = 0; i < size; i++) {
+            values[i] = random.nextInt(2001) - 1000;
+        }
+
+        return values;
+    }
+
+    /**
+     * Line which records its vertices
+     */
+    private static final class RecordingShape implements LineShape {
+        private float[] points = new float[0];
+        private int count;
+
+        float x(int vertex) {
+            return points[vertex * 2];
+        }
+
+        float y(int vertex) {
+            return points[vertex * 2 + 1];
+        }
+
+        @NonNull
+        @Override
+        public LineRenderer getRenderer() {
+            return LineRenderer.SEGMENTS;
+        }
+
+        @Override
+        public void reset() {
+            points = new float[0];
+            count = 0;
+        }
+
+        @Override
+        public void moveTo(float x, float y) {
+            add(x, y);
+        }
+
+        @Override
+        public void lineTo(float x, float y) {
+            add(x, y);
+        }
+
+        @Override
+        public int getPointsCount() {
+            return count;
+        }
+
+        @Override
+        public void transform(@NonNull Matrix matrix) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void draw(@NonNull Canvas canvas, @NonNull Paint paint, @NonNull Matrix matrix) {
+            throw new UnsupportedOperationException();
+        }
+
+        private void add(float x, float y) {
+            points = Arrays.copyOf(points, points.length + 2);
+            points[count * 2] = x;
+            points[count * 2 + 1] = y;
+            count++;
+        }
+    }
+}